@@ -32,6 +32,11 @@ public class EmailConsumer {
         log.info("Received JSON message: {}", jsonMessage);
         
         try {
+            // Older producers encoded the JSON a second time, as a JSON string; unwrap those first
+            if (jsonMessage.startsWith("\"")) {
+                jsonMessage = objectMapper.readValue(jsonMessage, String.class);
+            }
+            
             // Convert JSON to EmailMessage
             EmailMessage emailMessage = objectMapper.readValue(jsonMessage, EmailMessage.class);
             log.info("Converted to email message: {}", emailMessage);
@@ -1,5 +1,7 @@
 package com.emailservice.service;
 
+import java.util.List;
+
 import com.emailservice.jms.EmailMessage;
 
 public interface EmailService {
@@ -28,4 +30,34 @@ public interface EmailService {
      * @param rentalCode the rental code
      */
     void sendRentalConfirmationEmail(String to, String userName, String movieTitle, String rentalCode);
+    
+    /**
+     * Send one confirmation email for several rentals made together
+     * 
+     * @param to the recipient email address
+     * @param userName the user name
+     * @param rentals the rented movies with their rental codes
+     */
+    void sendRentalConfirmationEmail(String to, String userName, List<EmailMessage.RentedMovie> rentals);
+    
+    /**
+     * Send the email telling a waiting user that a copy was reserved for them
+     * 
+     * @param to the recipient email address
+     * @param userName the user name
+     * @param movieTitle the movie title
+     * @param rentalCode the rental code
+     */
+    void sendWaitlistRentalEmail(String to, String userName, String movieTitle, String rentalCode);
+    
+    /**
+     * Send a reminder for a rental that was not returned on time
+     * 
+     * @param to the recipient email address
+     * @param userName the user name
+     * @param movieTitle the movie title
+     * @param rentalCode the rental code
+     * @param dueDate when the rental was due back
+     */
+    void sendOverdueReminderEmail(String to, String userName, String movieTitle, String rentalCode, String dueDate);
 } 
\ No newline at end of file
@@ -16,6 +16,7 @@ import com.sendgrid.helpers.mail.objects.Content;
 import com.sendgrid.helpers.mail.objects.Email;
 
 import java.io.IOException;
+import java.util.List;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -38,6 +39,9 @@ public class EmailServiceImpl implements EmailService {
 
         if (emailMessage.getType() == EmailMessage.EmailType.REGISTRATION) {
             sendRegistrationEmail(emailMessage.getTo(), emailMessage.getUserName());
+        } else if (emailMessage.getType() == EmailMessage.EmailType.RENTAL_CONFIRMATION
+                && emailMessage.getRentals() != null && !emailMessage.getRentals().isEmpty()) {
+            sendRentalConfirmationEmail(emailMessage.getTo(), emailMessage.getUserName(), emailMessage.getRentals());
         } else if (emailMessage.getType() == EmailMessage.EmailType.RENTAL_CONFIRMATION) {
             sendRentalConfirmationEmail(
                 emailMessage.getTo(),
@@ -45,6 +49,21 @@ public class EmailServiceImpl implements EmailService {
                 emailMessage.getMovieTitle(),
                 emailMessage.getRentalCode()
             );
+        } else if (emailMessage.getType() == EmailMessage.EmailType.WAITLIST_RENTAL) {
+            sendWaitlistRentalEmail(
+                emailMessage.getTo(),
+                emailMessage.getUserName(),
+                emailMessage.getMovieTitle(),
+                emailMessage.getRentalCode()
+            );
+        } else if (emailMessage.getType() == EmailMessage.EmailType.OVERDUE_REMINDER) {
+            sendOverdueReminderEmail(
+                emailMessage.getTo(),
+                emailMessage.getUserName(),
+                emailMessage.getMovieTitle(),
+                emailMessage.getRentalCode(),
+                emailMessage.getDueDate()
+            );
         } else {
             log.warn("Unknown email type: {}", emailMessage.getType());
         }
@@ -77,6 +96,50 @@ public class EmailServiceImpl implements EmailService {
         }
     }
     
+    @Override
+    public void sendRentalConfirmationEmail(String to, String userName, List<EmailMessage.RentedMovie> rentals) {
+        log.info("Sending rental confirmation email for {} movies to: {}, userName: {}", rentals.size(), to, userName);
+        String subject = "Movie Rental Confirmation";
+        StringBuilder body = new StringBuilder(String.format("Dear %s, your rental of the following movies has been confirmed:", userName));
+        for (EmailMessage.RentedMovie rental : rentals) {
+            body.append(String.format("%n- '%s', rental code: %s", rental.getMovieTitle(), rental.getRentalCode()));
+        }
+        
+        try {
+            sendMailWithSendGrid(to, subject, body.toString());
+        } catch (IOException e) {
+            log.error("Failed to send rental confirmation email: {}", e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public void sendWaitlistRentalEmail(String to, String userName, String movieTitle, String rentalCode) {
+        log.info("Sending waitlist rental email to: {}, userName: {}", to, userName);
+        String subject = "Your Waitlisted Movie Is Ready";
+        String body = String.format("Dear %s, a copy of '%s' is now reserved for you. Your rental code is: %s", 
+                userName, movieTitle, rentalCode);
+        
+        try {
+            sendMailWithSendGrid(to, subject, body);
+        } catch (IOException e) {
+            log.error("Failed to send waitlist rental email: {}", e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public void sendOverdueReminderEmail(String to, String userName, String movieTitle, String rentalCode, String dueDate) {
+        log.info("Sending overdue reminder email to: {}, userName: {}", to, userName);
+        String subject = "Your Movie Rental Is Overdue";
+        String body = String.format("Dear %s, your rental of '%s' (rental code %s) was due back on %s. Please return it as soon as possible.", 
+                userName, movieTitle, rentalCode, dueDate);
+        
+        try {
+            sendMailWithSendGrid(to, subject, body);
+        } catch (IOException e) {
+            log.error("Failed to send overdue reminder email: {}", e.getMessage(), e);
+        }
+    }
+    
     private Response sendMailWithSendGrid(String to, String subject, String text) throws IOException {
         // Use env variable if available, otherwise use the injected value
         String sendgridApiKey = System.getenv("SENDGRID_API_KEY");
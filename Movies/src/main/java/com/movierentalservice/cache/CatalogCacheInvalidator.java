@@ -0,0 +1,72 @@
+package com.movierentalservice.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.movierentalservice.config.CacheConfig;
+import com.movierentalservice.event.MovieCatalogChangedEvent;
+import com.movierentalservice.event.MovieRatingChangedEvent;
+import com.movierentalservice.event.MovieStockChangedEvent;
+import com.movierentalservice.event.MoviesImportedEvent;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Evicts the catalog cache entries a change affects, only once its transaction has
+ * committed so a concurrent reader can never re-cache the old state. Movie listings
+ * hold ids only, so they are evicted just when a change adds or removes one of them.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogCacheInvalidator {
+    
+    private final CacheManager cacheManager;
+    
+    @TransactionalEventListener
+    public void onCatalogChanged(MovieCatalogChangedEvent event) {
+        cache(CacheConfig.MOVIES).evict(event.getMovieId());
+        evictListings();
+    }
+    
+    @TransactionalEventListener
+    public void onMoviesImported(MoviesImportedEvent event) {
+        // The movies are new, so only the listings can hold anything about them
+        evictListings();
+    }
+    
+    @TransactionalEventListener
+    public void onStockChanged(MovieStockChangedEvent event) {
+        cache(CacheConfig.MOVIES).evict(event.getMovieId());
+        
+        // The available listing only changes when the stock crossed zero. It is evicted whether
+        // cached or not: a load still in progress may have read the old stock, and the eviction
+        // waits for it and drops what it stored.
+        if (event.crossedZero()) {
+            cache(CacheConfig.MOVIE_LISTS).evict(CacheConfig.AVAILABLE_MOVIES_KEY);
+        }
+    }
+    
+    @TransactionalEventListener
+    public void onRatingChanged(MovieRatingChangedEvent event) {
+        cache(CacheConfig.MOVIES).evict(event.getMovieId());
+    }
+    
+    private void evictListings() {
+        // Saving or deleting a movie may add it to or drop it from any listing
+        Cache lists = cache(CacheConfig.MOVIE_LISTS);
+        lists.evict(CacheConfig.ALL_MOVIES_KEY);
+        lists.evict(CacheConfig.AVAILABLE_MOVIES_KEY);
+        // Saving a movie may have created new categories
+        cache(CacheConfig.CATEGORIES).evict(CacheConfig.ALL_CATEGORIES_KEY);
+    }
+    
+    private Cache cache(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            throw new IllegalStateException("Cache not configured: " + name);
+        }
+        return cache;
+    }
+}
@@ -0,0 +1,21 @@
+package com.movierentalservice.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Read-through caching for catalog reads. The caches themselves (Caffeine, bounded by size
+ * and TTL, with statistics exported as metrics) are configured under {@code spring.cache.*}.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    
+    public static final String MOVIES = "movies";
+    public static final String MOVIE_LISTS = "movieLists";
+    public static final String CATEGORIES = "categories";
+    
+    public static final String ALL_MOVIES_KEY = "all";
+    public static final String AVAILABLE_MOVIES_KEY = "available";
+    public static final String ALL_CATEGORIES_KEY = "all";
+}
@@ -1,17 +1,27 @@
 package com.movierentalservice.config;
 
+import java.util.Map;
+
 import org.apache.activemq.ActiveMQConnectionFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jms.connection.CachingConnectionFactory;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.support.converter.MappingJackson2MessageConverter;
 import org.springframework.jms.support.converter.MessageConverter;
 import org.springframework.jms.support.converter.MessageType;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movierentalservice.jms.EmailMessage;
+
 @Configuration
 public class JmsConfig {
 
+    // Value of the "_type" property on email messages, independent of the Java class name
+    public static final String EMAIL_MESSAGE_TYPE_ID = "emailMessage";
+    public static final String TYPE_ID_PROPERTY = "_type";
+
     @Value("${spring.activemq.broker-url}")
     private String brokerUrl;
 
@@ -21,28 +31,42 @@ public class JmsConfig {
     @Value("${spring.activemq.password}")
     private String password;
 
+    @Value("${movie.jms.session-cache-size:10}")
+    private int sessionCacheSize;
+
+    /**
+     * One shared broker connection whose sessions and producers are cached and reused,
+     * instead of a connection, session and producer opened and closed for every send
+     */
     @Bean
-    public ActiveMQConnectionFactory connectionFactory() {
-        ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory();
-        connectionFactory.setBrokerURL(brokerUrl);
-        connectionFactory.setUserName(username);
-        connectionFactory.setPassword(password);
+    public CachingConnectionFactory connectionFactory() {
+        ActiveMQConnectionFactory activeMqConnectionFactory = new ActiveMQConnectionFactory();
+        activeMqConnectionFactory.setBrokerURL(brokerUrl);
+        activeMqConnectionFactory.setUserName(username);
+        activeMqConnectionFactory.setPassword(password);
+
+        CachingConnectionFactory connectionFactory = new CachingConnectionFactory(activeMqConnectionFactory);
+        connectionFactory.setSessionCacheSize(sessionCacheSize);
+        connectionFactory.setCacheProducers(true);
+        connectionFactory.setReconnectOnException(true);
         return connectionFactory;
     }
 
     @Bean
-    public MessageConverter jacksonJmsMessageConverter() {
+    public MessageConverter jacksonJmsMessageConverter(ObjectMapper objectMapper) {
         MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(objectMapper);
         converter.setTargetType(MessageType.TEXT);
-        converter.setTypeIdPropertyName("_type");
+        converter.setTypeIdPropertyName(TYPE_ID_PROPERTY);
+        converter.setTypeIdMappings(Map.of(EMAIL_MESSAGE_TYPE_ID, EmailMessage.class));
         return converter;
     }
 
     @Bean
-    public JmsTemplate jmsTemplate() {
+    public JmsTemplate jmsTemplate(CachingConnectionFactory connectionFactory, MessageConverter jacksonJmsMessageConverter) {
         JmsTemplate template = new JmsTemplate();
-        template.setConnectionFactory(connectionFactory());
-        template.setMessageConverter(jacksonJmsMessageConverter());
+        template.setConnectionFactory(connectionFactory);
+        template.setMessageConverter(jacksonJmsMessageConverter);
         template.setDefaultDestinationName("movie.rental.email.queue");
         return template;
     }
@@ -0,0 +1,55 @@
+package com.movierentalservice.config;
+
+import java.util.Map;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Entity ids come from pooled sequences (one round trip per 50 ids) so Hibernate can batch
+ * inserts, which identity columns rule out. Tables created before the switch already hold
+ * identity-generated ids, so on startup every sequence that is behind its table is moved
+ * past the largest id. A sequence that is already ahead is left alone.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class SequenceAligner {
+    
+    // Must match allocationSize of the @SequenceGenerator on each entity
+    public static final int ALLOCATION_SIZE = 50;
+    
+    private static final Map<String, String> SEQUENCES_BY_TABLE = Map.of(
+            "actors", "actors_seq",
+            "categories", "categories_seq",
+            "movies", "movies_seq",
+            "ratings", "ratings_seq",
+            "rentals", "rentals_seq",
+            "users", "users_seq",
+            "email_outbox", "email_outbox_seq");
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @PostConstruct
+    public void alignSequences() {
+        SEQUENCES_BY_TABLE.forEach((table, sequence) -> {
+            long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            if (maxId == 0) {
+                return;
+            }
+            // The pooled optimizer hands out the ALLOCATION_SIZE ids ending at the value it reads
+            long required = maxId + ALLOCATION_SIZE;
+            long next = jdbcTemplate.queryForObject("SELECT nextval('" + sequence + "')", Long.class);
+            if (next < required) {
+                jdbcTemplate.queryForObject("SELECT setval('" + sequence + "', ?, false)", Long.class, required);
+                log.info("Moved sequence {} past the largest id {} in {}", sequence, maxId, table);
+            }
+        });
+    }
+} 
@@ -1,9 +1,14 @@
 package com.movierentalservice.controller;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,17 +17,26 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.movierentalservice.dto.AdminStatsDto;
 import com.movierentalservice.dto.ImageUploadResponseDto;
 import com.movierentalservice.dto.MovieDto;
+import com.movierentalservice.dto.MovieImportReport;
 import com.movierentalservice.dto.RentalDto;
+import com.movierentalservice.dto.RentalPage;
+import com.movierentalservice.dto.RentalSearchCriteria;
 import com.movierentalservice.service.AdminService;
 import com.movierentalservice.service.ImageService;
+import com.movierentalservice.service.MovieImportService;
+import com.movierentalservice.service.RentalExportService;
 import com.movierentalservice.service.RentalService;
+import com.movierentalservice.service.StatsService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -36,6 +50,9 @@ public class AdminController {
     private final AdminService adminService;
     private final RentalService rentalService;
     private final ImageService imageService;
+    private final MovieImportService movieImportService;
+    private final RentalExportService rentalExportService;
+    private final StatsService statsService;
 
     // Image handling
     @PostMapping("/images")
@@ -56,6 +73,17 @@ public class AdminController {
         return new ResponseEntity<>(addedMovie, HttpStatus.CREATED);
     }
 
+    // Bulk import: the body is streamed, never held in memory as a whole
+    @PostMapping(value = "/movies/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<MovieImportReport> importMovies(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        MovieImportService.Format format = contentType.startsWith("text/csv")
+                ? MovieImportService.Format.CSV
+                : MovieImportService.Format.NDJSON;
+        return ResponseEntity.ok(movieImportService.importMovies(body, format));
+    }
+
     @PutMapping("/movies/{movieId}")
     public ResponseEntity<MovieDto> updateMovie(
             @PathVariable Long movieId,
@@ -80,9 +108,48 @@ public class AdminController {
     @GetMapping("/rentals")
     public ResponseEntity<List<RentalDto>> getAllRentals(
             @RequestParam(required = false) String email,
-            @RequestParam(required = false) String status) {
-        List<RentalDto> rentals = adminService.getAllRentals(email, status);
-        return ResponseEntity.ok(rentals);
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long movieId,
+            @RequestParam(required = false) String rentalCode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        RentalSearchCriteria criteria = RentalSearchCriteria.builder()
+                .email(email)
+                .status(status)
+                .movieId(movieId)
+                .rentalCode(rentalCode)
+                .from(from)
+                .to(to)
+                .cursor(cursor)
+                .limit(limit)
+                .build();
+        RentalPage page = adminService.getRentals(criteria);
+
+        // Same contract as GET /movies: a plain list, with the next page's cursor in a header
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(MovieController.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getRentals());
+    }
+
+    // Streams every matching rental as CSV (default) or NDJSON, whatever the size of the table
+    @GetMapping("/rentals/export")
+    public ResponseEntity<StreamingResponseBody> exportRentals(
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "csv") String format) {
+        RentalExportService.Format exportFormat = RentalExportService.Format.valueOf(format.toUpperCase());
+        StreamingResponseBody body = rentalExportService.exportRentals(email, status, from, to, exportFormat);
+        boolean csv = exportFormat == RentalExportService.Format.CSV;
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv") : new MediaType("application", "x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"rentals." + (csv ? "csv" : "ndjson") + "\"")
+                .body(body);
     }
 
     @PatchMapping("/rentals/{rentalId}/return")
@@ -96,4 +163,20 @@ public class AdminController {
         RentalDto takenRental = adminService.markRentalAsTaken(rentalId);
         return ResponseEntity.ok(takenRental);
     }
+
+    // Dashboard
+    @GetMapping("/stats")
+    public ResponseEntity<AdminStatsDto> getStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(defaultValue = "10") int top) {
+        return ResponseEntity.ok(statsService.getStats(from, to, granularity, top));
+    }
+
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<Void> rebuildStats() {
+        statsService.rebuild();
+        return ResponseEntity.noContent().build();
+    }
 } 
\ No newline at end of file
@@ -7,19 +7,27 @@ import java.util.List;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.movierentalservice.dto.MovieDto;
+import com.movierentalservice.dto.MovieFacetsDto;
+import com.movierentalservice.dto.MoviePage;
+import com.movierentalservice.dto.MovieSearchCriteria;
 import com.movierentalservice.dto.RatingDto;
+import com.movierentalservice.dto.WaitlistEntryDto;
+import com.movierentalservice.service.IdempotencyService;
 import com.movierentalservice.service.ImageService;
 import com.movierentalservice.service.MovieService;
 import com.movierentalservice.service.RatingService;
+import com.movierentalservice.service.WaitlistService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,9 +37,13 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class MovieController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final MovieService movieService;
     private final RatingService ratingService;
     private final ImageService imageService;
+    private final WaitlistService waitlistService;
+    private final IdempotencyService idempotencyService;
 
 
     @GetMapping
@@ -39,10 +51,71 @@ public class MovieController {
             @RequestParam(required = false) String category,
             @RequestParam(required = false) Integer year,
             @RequestParam(required = false) Double rating,
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Boolean fuzzy,
+            @RequestParam(required = false) Boolean available,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        
+        MovieSearchCriteria criteria = MovieSearchCriteria.builder()
+                .category(category)
+                .year(year)
+                .rating(rating)
+                .search(search)
+                .fuzzy(fuzzy)
+                .available(available)
+                .sort(sort)
+                .cursor(cursor)
+                .limit(limit)
+                .build();
+        
+        // An unfiltered, unpaged listing is the whole catalog, which is served from the cache
+        if (criteria.equals(new MovieSearchCriteria())) {
+            return ResponseEntity.ok(movieService.getAllMovies());
+        }
+        
+        MoviePage page = movieService.searchMovies(criteria);
+        
+        // The body stays a plain list; the cursor for the next page travels in a header
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getMovies());
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<MovieFacetsDto> getFacets(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Integer year,
+            @RequestParam(required = false) Double rating,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Boolean fuzzy,
+            @RequestParam(required = false) Boolean available) {
+        
+        MovieSearchCriteria criteria = MovieSearchCriteria.builder()
+                .category(category)
+                .year(year)
+                .rating(rating)
+                .search(search)
+                .fuzzy(fuzzy)
+                .available(available)
+                .build();
         
-        List<MovieDto> movies = movieService.searchMovies(category, year, rating, search);
-        return ResponseEntity.ok(movies);
+        return ResponseEntity.ok(movieService.getFacets(criteria));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(movieService.complete(q, limit));
+    }
+
+    @GetMapping("/did-you-mean")
+    public ResponseEntity<List<String>> didYouMean(@RequestParam String q) {
+        return ResponseEntity.ok(movieService.suggestSpellings(q));
     }
 
     @GetMapping("/{movieId}")
@@ -54,11 +127,34 @@ public class MovieController {
     @PostMapping("/{movieId}/ratings")
     public ResponseEntity<RatingDto> rateMovie(
             @PathVariable Long movieId,
+            @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @RequestBody RatingDto ratingDto) {
-        RatingDto savedRating = ratingService.addRating(movieId, ratingDto);
+        RatingDto savedRating = idempotencyService.execute("ratings:" + movieId, idempotencyKey, ratingDto, RatingDto.class,
+                () -> ratingService.addRating(movieId, ratingDto));
         return ResponseEntity.ok(savedRating);
     }
 
+    @PostMapping("/{movieId}/waitlist")
+    public ResponseEntity<WaitlistEntryDto> joinWaitlist(
+            @PathVariable Long movieId,
+            @RequestBody WaitlistEntryDto waitlistEntryDto) {
+        WaitlistEntryDto entry = waitlistService.joinWaitlist(movieId, waitlistEntryDto.getUserId());
+        return new ResponseEntity<>(entry, HttpStatus.CREATED);
+    }
+
+    @GetMapping("/{movieId}/waitlist")
+    public ResponseEntity<List<WaitlistEntryDto>> getWaitlist(@PathVariable Long movieId) {
+        return ResponseEntity.ok(waitlistService.getWaitlist(movieId));
+    }
+
+    @DeleteMapping("/{movieId}/waitlist")
+    public ResponseEntity<Void> leaveWaitlist(
+            @PathVariable Long movieId,
+            @RequestParam Long userId) {
+        waitlistService.leaveWaitlist(movieId, userId);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("images/{imageId}")
     public ResponseEntity<byte[]> getImage(@PathVariable String imageId) {
         try {
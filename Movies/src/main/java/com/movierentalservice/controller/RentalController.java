@@ -1,5 +1,7 @@
 package com.movierentalservice.controller;
 
+import java.util.List;
+
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -7,12 +9,16 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.movierentalservice.dto.BatchRentalRequest;
 import com.movierentalservice.dto.RentalDto;
+import com.movierentalservice.service.IdempotencyService;
 import com.movierentalservice.service.RentalService;
 
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
 @RestController
@@ -21,13 +27,24 @@ import lombok.RequiredArgsConstructor;
 public class RentalController {
 
     private final RentalService rentalService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping
-    public ResponseEntity<RentalDto> createRental(@RequestBody RentalDto rentalDto) {
-        RentalDto createdRental = rentalService.createRental(rentalDto);
+    public ResponseEntity<RentalDto> createRental(
+            @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody RentalDto rentalDto) {
+        // A retried request gets the rental created by the first one
+        RentalDto createdRental = idempotencyService.execute("rentals", idempotencyKey, rentalDto, RentalDto.class,
+                () -> rentalService.createRental(rentalDto));
         return new ResponseEntity<>(createdRental, HttpStatus.CREATED);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<RentalDto>> createRentals(@Valid @RequestBody BatchRentalRequest request) {
+        List<RentalDto> createdRentals = rentalService.createRentals(request);
+        return new ResponseEntity<>(createdRentals, HttpStatus.CREATED);
+    }
+
     @GetMapping("/{rentalId}")
     public ResponseEntity<RentalDto> getRentalDetails(@PathVariable Long rentalId) {
         RentalDto rental = rentalService.getRentalById(rentalId);
@@ -0,0 +1,61 @@
+package com.movierentalservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdminStatsDto {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private String granularity; // HOUR or DAY
+    private List<RentalBucket> rentals; // only buckets with activity
+    private List<RatingBucket> ratings;
+    private List<MovieOut> moviesOut; // most copies out first
+    private List<Renter> topRenters;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RentalBucket {
+        private LocalDateTime start;
+        private long ordered; // rentals that entered each status during the bucket
+        private long taken;
+        private long returned;
+        private long cancelled;
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RatingBucket {
+        private LocalDateTime start;
+        private long ratings; // new ratings, changed ones are not counted again
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MovieOut {
+        private Long movieId;
+        private String title;
+        private long ordered; // reserved, not picked up yet
+        private long taken;
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Renter {
+        private Long userId;
+        private String fullName;
+        private long rentals;
+    }
+} 
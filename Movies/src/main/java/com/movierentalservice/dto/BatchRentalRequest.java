@@ -0,0 +1,30 @@
+package com.movierentalservice.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRentalRequest {
+    
+    @NotNull(message = "User id is required")
+    private Long userId;
+    
+    @NotEmpty(message = "At least one movie is required")
+    @Size(max = 50, message = "At most 50 movies can be rented at once")
+    private List<@NotNull Long> movieIds;
+    
+    private LocalDateTime rentalDate;
+    
+    private LocalDateTime returnDate;
+}
@@ -22,6 +22,7 @@ public class MovieDto {
     private List<String> actors;
     private List<String> categories;
     private Double averageRating;
+    private Integer ratingCount;
     private Integer stockQuantity;
     private boolean available;
 } 
\ No newline at end of file
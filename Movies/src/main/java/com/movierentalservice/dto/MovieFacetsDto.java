@@ -0,0 +1,22 @@
+package com.movierentalservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieFacetsDto {
+    private long total;
+    private Map<String, Long> categories;
+    private Map<Integer, Long> years;
+    private Map<Integer, Long> decades; // keyed by the first year of the decade
+    private Map<Integer, Long> ratings; // keyed by whole stars, 0 for movies not rated yet
+    private long available;
+    private long unavailable;
+}
@@ -0,0 +1,24 @@
+package com.movierentalservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieImportReport {
+    private String format;
+    private long records; // records read from the upload
+    private long imported;
+    private long failed;
+    private int distinctActors; // across the whole upload
+    private int distinctCategories;
+    private List<String> errors; // the first errors, with the line they start on
+    private long elapsedMillis;
+    private long moviesPerSecond;
+}
@@ -0,0 +1,15 @@
+package com.movierentalservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoviePage {
+    private List<MovieDto> movies;
+    private String nextCursor; // null on the last page
+}
@@ -0,0 +1,22 @@
+package com.movierentalservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieSearchCriteria {
+    private String category;
+    private Integer year;
+    private Double rating;
+    private String search;
+    private Boolean fuzzy; // true to match the search against names by similarity, tolerating typos
+    private Boolean available; // true for movies in stock, false for movies out of stock
+    private String sort; // title, releaseYear, averageRating or createdAt, prefixed with '-' for descending
+    private String cursor; // opaque cursor returned with the previous page
+    private Integer limit; // page size, null returns every match
+}
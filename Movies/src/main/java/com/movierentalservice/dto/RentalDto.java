@@ -1,5 +1,7 @@
 package com.movierentalservice.dto;
 
+import com.movierentalservice.entity.Rental;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -21,4 +23,10 @@ public class RentalDto {
     private LocalDateTime rentalDate;
     private LocalDateTime returnDate;
     private String status; // ORDERED, TAKEN, RETURNED, CANCELLED
+    
+    // Used by JPQL constructor expressions, which select the status as the enum
+    public RentalDto(Long id, Long userId, String userFullName, Long movieId, String movieTitle, String rentalCode,
+                     LocalDateTime rentalDate, LocalDateTime returnDate, Rental.RentalStatus status) {
+        this(id, userId, userFullName, movieId, movieTitle, rentalCode, rentalDate, returnDate, status.name());
+    }
 } 
\ No newline at end of file
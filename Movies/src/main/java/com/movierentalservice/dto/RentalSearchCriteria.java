@@ -0,0 +1,23 @@
+package com.movierentalservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RentalSearchCriteria {
+    private String email;
+    private String status;
+    private Long movieId;
+    private String rentalCode; // matched anywhere in the code, ignoring case
+    private LocalDateTime from; // rentals made at or after this time
+    private LocalDateTime to; // rentals made before this time
+    private String cursor; // opaque cursor returned with the previous page
+    private Integer limit; // page size, null returns every match
+} 
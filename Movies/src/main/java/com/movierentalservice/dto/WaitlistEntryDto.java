@@ -0,0 +1,25 @@
+package com.movierentalservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistEntryDto {
+    private Long id;
+    private Long userId;
+    private String userFullName;
+    private Long movieId;
+    private String movieTitle;
+    private String status; // WAITING, FULFILLED, CANCELLED
+    private Integer position; // 1 for the next user to get a copy, only while WAITING
+    private String rentalCode; // set once a copy was handed over
+    private LocalDateTime createdAt;
+    private LocalDateTime fulfilledAt;
+}
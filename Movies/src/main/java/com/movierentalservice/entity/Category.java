@@ -8,6 +8,8 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 import lombok.EqualsAndHashCode;
 
+import com.movierentalservice.search.TextNormalizer;
+
 import java.util.HashSet;
 import java.util.Set;
 
@@ -20,15 +22,26 @@ import java.util.Set;
 public class Category {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "categories_seq")
+    @SequenceGenerator(name = "categories_seq", sequenceName = "categories_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false, unique = true)
     private String name;
     
+    // Lookup key: the name lower-cased, without accents or punctuation, so "Sci-Fi" and "sci fi" are one entry
+    @Column(unique = true)
+    private String normalizedName;
+    
     @ManyToMany(mappedBy = "categories")
     @Builder.Default
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
     private Set<Movie> movies = new HashSet<>();
+    
+    @PrePersist
+    @PreUpdate
+    void normalizeName() {
+        normalizedName = TextNormalizer.normalizeName(name);
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.movierentalservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The response stored for an Idempotency-Key, written in the same transaction as the
+ * operation it belongs to
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+    @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    
+    // Scope of the operation and the client's key, e.g. "rentals:3f0c..."
+    @Id
+    @Column(length = 320)
+    private String id;
+    
+    // SHA-256 of the request, so a key reused for a different request is rejected
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String responseBody;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+} 
@@ -7,6 +7,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -17,7 +19,13 @@ import java.util.List;
 import java.util.Set;
 
 @Entity
-@Table(name = "movies")
+@Table(name = "movies", indexes = {
+    // Each sortable column is paired with the id so keyset pages can seek in the index
+    @Index(name = "idx_movies_title_id", columnList = "title, id"),
+    @Index(name = "idx_movies_release_year_id", columnList = "release_year, id"),
+    @Index(name = "idx_movies_average_rating_id", columnList = "average_rating, id"),
+    @Index(name = "idx_movies_created_at_id", columnList = "created_at, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -25,7 +33,8 @@ import java.util.Set;
 public class Movie {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movies_seq")
+    @SequenceGenerator(name = "movies_seq", sequenceName = "movies_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -48,6 +57,7 @@ public class Movie {
         joinColumns = @JoinColumn(name = "movie_id"),
         inverseJoinColumns = @JoinColumn(name = "actor_id")
     )
+    @BatchSize(size = 100)
     @Builder.Default
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
@@ -59,6 +69,7 @@ public class Movie {
         joinColumns = @JoinColumn(name = "movie_id"),
         inverseJoinColumns = @JoinColumn(name = "category_id")
     )
+    @BatchSize(size = 100)
     @Builder.Default
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
@@ -78,6 +89,29 @@ public class Movie {
     
     private Integer stockQuantity;
     
+    // Rating aggregates maintained by RatingServiceImpl, so listing pages never load the ratings rows
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Long ratingSum = 0L;
+    
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Integer ratingCount = 0;
+    
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Double averageRating = 0.0;
+    
+    // Bulk updates in MovieRepository bump it as well, so a stale admin edit cannot overwrite them
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Long version = 0L;
+    
     @CreationTimestamp
     private LocalDateTime createdAt;
     
@@ -88,15 +122,4 @@ public class Movie {
     public boolean isAvailable() {
         return stockQuantity > 0;
     }
-    
-    @Transient
-    public Double getAverageRating() {
-        if (ratings.isEmpty()) {
-            return 0.0;
-        }
-        return ratings.stream()
-                .mapToInt(Rating::getRating)
-                .average()
-                .orElse(0.0);
-    }
 } 
\ No newline at end of file
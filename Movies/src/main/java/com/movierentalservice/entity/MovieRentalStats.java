@@ -0,0 +1,28 @@
+package com.movierentalservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Copies of a movie currently out: reserved by an order or taken by a user
+ */
+@Entity
+@Table(name = "movie_rental_stats")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieRentalStats {
+    
+    @Id
+    private Long movieId;
+    
+    @Column(nullable = false)
+    private long orderedCount;
+    
+    @Column(nullable = false)
+    private long takenCount;
+}
@@ -0,0 +1,27 @@
+package com.movierentalservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of new ratings submitted during one hour
+ */
+@Entity
+@Table(name = "rating_hourly_stats")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingHourlyStats {
+    
+    @Id
+    private LocalDateTime bucket; // start of the hour
+    
+    @Column(nullable = false)
+    private long ratings;
+}
@@ -9,9 +9,16 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
 
 @Entity
-@Table(name = "rentals")
+@Table(name = "rentals", indexes = {
+    @Index(name = "idx_rentals_status_return_date", columnList = "status, return_date"),
+    @Index(name = "idx_rentals_status_rental_date", columnList = "status, rental_date"),
+    @Index(name = "idx_rentals_user_rental_date", columnList = "user_id, rental_date"),
+    @Index(name = "idx_rentals_movie_rental_date", columnList = "movie_id, rental_date")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -19,7 +26,8 @@ import java.time.LocalDateTime;
 public class Rental {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rentals_seq")
+    @SequenceGenerator(name = "rentals_seq", sequenceName = "rentals_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne
@@ -40,6 +48,12 @@ public class Rental {
     @Enumerated(EnumType.STRING)
     private RentalStatus status;
     
+    // When the rental was picked up, null until it is TAKEN
+    private LocalDateTime takenAt;
+    
+    // Set once the overdue reminder for this rental has been queued
+    private LocalDateTime overdueNotifiedAt;
+    
     @CreationTimestamp
     private LocalDateTime createdAt;
     
@@ -47,6 +61,31 @@ public class Rental {
     private LocalDateTime updatedAt;
     
     public enum RentalStatus {
-        ORDERED, TAKEN, RETURNED, CANCELLED
+        ORDERED, TAKEN, RETURNED, CANCELLED;
+        
+        /**
+         * The statuses a rental may enter this one from: ORDERED -> TAKEN -> RETURNED,
+         * and ORDERED or TAKEN -> CANCELLED
+         */
+        public Set<RentalStatus> allowedFrom() {
+            switch (this) {
+                case TAKEN:
+                    return EnumSet.of(ORDERED);
+                case RETURNED:
+                    return EnumSet.of(TAKEN);
+                case CANCELLED:
+                    return EnumSet.of(ORDERED, TAKEN);
+                default:
+                    return EnumSet.noneOf(RentalStatus.class);
+            }
+        }
+        
+        /**
+         * Whether entering this status puts the copy back in stock. A copy is held from the
+         * moment it is ordered until the rental is closed.
+         */
+        public boolean releasesStock() {
+            return this == RETURNED || this == CANCELLED;
+        }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.movierentalservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Number of rentals that entered a status during one hour
+ */
+@Entity
+@Table(name = "rental_hourly_stats")
+@IdClass(RentalHourlyStats.Key.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RentalHourlyStats {
+    
+    @Id
+    private LocalDateTime bucket; // start of the hour
+    
+    @Id
+    @Enumerated(EnumType.STRING)
+    private Rental.RentalStatus status;
+    
+    @Column(nullable = false)
+    private long rentals;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDateTime bucket;
+        private Rental.RentalStatus status;
+    }
+}
@@ -0,0 +1,27 @@
+package com.movierentalservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of rentals a user has ever made
+ */
+@Entity
+@Table(name = "user_rental_stats", indexes = {
+    @Index(name = "idx_user_rental_stats_rentals", columnList = "rentals, user_id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserRentalStats {
+    
+    @Id
+    private Long userId;
+    
+    @Column(nullable = false)
+    private long rentals;
+}
@@ -0,0 +1,35 @@
+package com.movierentalservice.event;
+
+import com.movierentalservice.dto.MovieDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when an admin adds, updates or deletes a movie. Listeners that keep
+ * derived state (search indexes, caches) react to it once the transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+public class MovieCatalogChangedEvent {
+    
+    private final Long movieId;
+    
+    // Snapshot of the movie after the change, or null when it was deleted
+    private final MovieDto movie;
+    
+    // Version of the movie row the snapshot was taken from, so listeners can drop stale ones
+    private final long version;
+    
+    public static MovieCatalogChangedEvent saved(MovieDto movie, long version) {
+        return new MovieCatalogChangedEvent(movie.getId(), movie, version);
+    }
+    
+    public static MovieCatalogChangedEvent deleted(Long movieId) {
+        return new MovieCatalogChangedEvent(movieId, null, Long.MAX_VALUE);
+    }
+    
+    public boolean isDeleted() {
+        return movie == null;
+    }
+}
@@ -0,0 +1,29 @@
+package com.movierentalservice.event;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever a rating submission changes the rating aggregates of a movie
+ */
+@Getter
+@AllArgsConstructor
+public class MovieRatingChangedEvent {
+    
+    private final Long movieId;
+    
+    // False when the user changed a rating they had already given
+    private final boolean newRating;
+    
+    // When the user first rated the movie, or null when no user rated it
+    private final LocalDateTime ratedAt;
+    
+    /**
+     * The aggregates were repaired from the ratings table rather than changed by a rating
+     */
+    public static MovieRatingChangedEvent corrected(Long movieId) {
+        return new MovieRatingChangedEvent(movieId, false, null);
+    }
+}
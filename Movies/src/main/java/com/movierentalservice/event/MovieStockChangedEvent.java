@@ -0,0 +1,24 @@
+package com.movierentalservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever a rental operation changes the stock of a movie, with the stock the
+ * transaction found and the stock it left
+ */
+@Getter
+@AllArgsConstructor
+public class MovieStockChangedEvent {
+    
+    private final Long movieId;
+    private final int stockBefore;
+    private final int stockAfter;
+    
+    /**
+     * Whether the movie came into or went out of stock
+     */
+    public boolean crossedZero() {
+        return (stockBefore > 0) != (stockAfter > 0);
+    }
+}
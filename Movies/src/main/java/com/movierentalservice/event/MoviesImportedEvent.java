@@ -0,0 +1,20 @@
+package com.movierentalservice.event;
+
+import java.util.List;
+
+import com.movierentalservice.dto.MovieDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published once per committed import chunk in place of a {@link MovieCatalogChangedEvent}
+ * per movie, so listeners evict and index the whole chunk in one go
+ */
+@Getter
+@AllArgsConstructor
+public class MoviesImportedEvent {
+    
+    // Snapshots of the inserted movies, named the way the catalog stores their actors and categories
+    private final List<MovieDto> movies;
+}
@@ -0,0 +1,36 @@
+package com.movierentalservice.event;
+
+import java.time.LocalDateTime;
+
+import com.movierentalservice.entity.Rental;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when rentals are created or move to another status. One event may stand for
+ * several rentals of the same movie and user making the same move, as the sweeper expires
+ * them in bulk.
+ */
+@Getter
+@AllArgsConstructor
+public class RentalStatusChangedEvent {
+    
+    private final Long movieId;
+    
+    private final Long userId;
+    
+    // Null for new rentals
+    private final Rental.RentalStatus from;
+    
+    private final Rental.RentalStatus to;
+    
+    private final int rentals;
+    
+    private final LocalDateTime changedAt;
+    
+    public static RentalStatusChangedEvent created(Rental rental) {
+        return new RentalStatusChangedEvent(rental.getMovie().getId(), rental.getUser().getId(),
+                null, Rental.RentalStatus.ORDERED, 1, rental.getCreatedAt());
+    }
+}
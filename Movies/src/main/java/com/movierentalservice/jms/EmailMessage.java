@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.util.List;
 
 @Data
 @Builder
@@ -27,8 +28,27 @@ public class EmailMessage implements Serializable {
     private String movieTitle;
     private String rentalCode;
     
+    // When a rental was due back, already formatted for display
+    private String dueDate;
+    
+    // Every movie of a multi-movie checkout, confirmed in a single email
+    private List<RentedMovie> rentals;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RentedMovie implements Serializable {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private String movieTitle;
+        private String rentalCode;
+    }
+    
     public enum EmailType {
         REGISTRATION,
-        RENTAL_CONFIRMATION
+        RENTAL_CONFIRMATION,
+        WAITLIST_RENTAL,
+        OVERDUE_REMINDER
     }
 } 
\ No newline at end of file
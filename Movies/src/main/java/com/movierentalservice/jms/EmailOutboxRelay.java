@@ -0,0 +1,109 @@
+package com.movierentalservice.jms;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jms.JmsException;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.movierentalservice.config.JmsConfig;
+import com.movierentalservice.entity.OutboxEmail;
+import com.movierentalservice.repository.OutboxEmailRepository;
+
+import jakarta.jms.TextMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Delivers emails from the outbox to the email queue in batches. A failed send is retried
+ * with exponential backoff until {@code max-attempts} is reached, after which the row is
+ * marked FAILED and left for inspection. Delivery is at least once: a crash between the send
+ * and the commit sends the batch again.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxRelay {
+    
+    private static final long MAX_BACKOFF_SECONDS = 600;
+    
+    private final OutboxEmailRepository outboxEmailRepository;
+    private final JmsTemplate jmsTemplate;
+    
+    @Value("${movie.rental.jms.email.queue}")
+    private String emailQueue;
+    
+    @Value("${movie.email.outbox.batch-size:100}")
+    private int batchSize;
+    
+    @Value("${movie.email.outbox.max-attempts:10}")
+    private int maxAttempts;
+    
+    @Value("${movie.email.outbox.retention-days:7}")
+    private int retentionDays;
+    
+    @Scheduled(fixedDelayString = "${movie.email.outbox.poll-delay-ms:1000}")
+    @Transactional
+    public void relay() {
+        List<OutboxEmail> batch = outboxEmailRepository.lockDueBatch(LocalDateTime.now(), batchSize);
+        int sent = 0;
+        for (OutboxEmail email : batch) {
+            try {
+                send(email.getPayload());
+                email.setStatus(OutboxEmail.Status.SENT);
+                email.setSentAt(LocalDateTime.now());
+                sent++;
+            } catch (JmsException e) {
+                // The broker is most likely down; leave the rest of the batch for the next poll
+                scheduleRetry(email, e);
+                break;
+            }
+        }
+        if (sent > 0) {
+            log.debug("Relayed {} outbox emails to queue {}", sent, emailQueue);
+        }
+    }
+    
+    @Scheduled(cron = "${movie.email.outbox.purge-cron:0 0 4 * * *}")
+    @Transactional
+    public void purgeSent() {
+        int purged = outboxEmailRepository.deleteByStatusAndSentAtBefore(
+                OutboxEmail.Status.SENT, LocalDateTime.now().minusDays(retentionDays));
+        if (purged > 0) {
+            log.info("Purged {} sent outbox emails", purged);
+        }
+    }
+    
+    /**
+     * The payload is already JSON, so it goes out as the message text as is rather than
+     * through the converter, which would encode it a second time
+     */
+    private void send(String payload) {
+        jmsTemplate.send(emailQueue, session -> {
+            TextMessage message = session.createTextMessage(payload);
+            message.setStringProperty(JmsConfig.TYPE_ID_PROPERTY, JmsConfig.EMAIL_MESSAGE_TYPE_ID);
+            return message;
+        });
+    }
+    
+    private void scheduleRetry(OutboxEmail email, JmsException e) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        email.setLastError(e.getMessage() != null && e.getMessage().length() > 255
+                ? e.getMessage().substring(0, 255)
+                : e.getMessage());
+        if (attempts >= maxAttempts) {
+            email.setStatus(OutboxEmail.Status.FAILED);
+            log.error("Giving up on outbox email {} after {} attempts: {}", email.getId(), attempts, e.getMessage());
+            return;
+        }
+        long backoffSeconds = Math.min(MAX_BACKOFF_SECONDS, 1L << Math.min(attempts, 20));
+        email.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoffSeconds));
+        log.warn("Failed to relay outbox email {} (attempt {}), retrying in {} s: {}",
+                email.getId(), attempts, backoffSeconds, e.getMessage());
+    }
+}
@@ -1,25 +1,31 @@
 package com.movierentalservice.jms;
 
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.jms.JmsException;
-import org.springframework.jms.core.JmsTemplate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movierentalservice.entity.OutboxEmail;
+import com.movierentalservice.repository.OutboxEmailRepository;
 
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Queues emails in the outbox table, within the caller's transaction, so a request never
+ * waits on the broker and an email is never lost while the broker is down.
+ */
 @Service
+@Transactional(propagation = Propagation.MANDATORY)
 @RequiredArgsConstructor
-@Slf4j
 public class EmailSender {
     
-    private final JmsTemplate jmsTemplate;
-    
-    @Value("${movie.rental.jms.email.queue}")
-    private String emailQueue;
+    private final OutboxEmailRepository outboxEmailRepository;
+    private final ObjectMapper objectMapper;
     
     public void sendRegistrationEmail(String to, String userName) {
         EmailMessage emailMessage = EmailMessage.builder()
@@ -47,18 +53,61 @@ public class EmailSender {
         sendEmail(emailMessage);
     }
     
+    public void sendRentalConfirmationEmail(String to, String userName, List<EmailMessage.RentedMovie> rentals) {
+        EmailMessage emailMessage = EmailMessage.builder()
+                .to(to)
+                .subject("Movie Rental Confirmation")
+                .type(EmailMessage.EmailType.RENTAL_CONFIRMATION)
+                .userName(userName)
+                // Single-title fields as well, for consumers that do not read the list yet
+                .movieTitle(rentals.stream().map(EmailMessage.RentedMovie::getMovieTitle).collect(Collectors.joining(", ")))
+                .rentalCode(rentals.stream().map(EmailMessage.RentedMovie::getRentalCode).collect(Collectors.joining(", ")))
+                .rentals(rentals)
+                .body("Your movie rentals have been confirmed.")
+                .build();
+        
+        sendEmail(emailMessage);
+    }
+    
+    public void sendWaitlistRentalEmail(String to, String userName, String movieTitle, String rentalCode) {
+        EmailMessage emailMessage = EmailMessage.builder()
+                .to(to)
+                .subject("Your Waitlisted Movie Is Ready")
+                .type(EmailMessage.EmailType.WAITLIST_RENTAL)
+                .userName(userName)
+                .movieTitle(movieTitle)
+                .rentalCode(rentalCode)
+                .body("A copy of a movie you were waiting for has been reserved for you.")
+                .build();
+        
+        sendEmail(emailMessage);
+    }
+    
+    public void sendOverdueReminderEmail(String to, String userName, String movieTitle, String rentalCode, String dueDate) {
+        EmailMessage emailMessage = EmailMessage.builder()
+                .to(to)
+                .subject("Your Movie Rental Is Overdue")
+                .type(EmailMessage.EmailType.OVERDUE_REMINDER)
+                .userName(userName)
+                .movieTitle(movieTitle)
+                .rentalCode(rentalCode)
+                .dueDate(dueDate)
+                .body("A movie you rented was due back and has not been returned yet.")
+                .build();
+        
+        sendEmail(emailMessage);
+    }
+    
     private void sendEmail(EmailMessage emailMessage) {
         try {
-            // Convert EmailMessage to JSON before sending
-            ObjectMapper objectMapper = new ObjectMapper();
-            String jsonMessage = objectMapper.writeValueAsString(emailMessage);
-            
-            jmsTemplate.convertAndSend(emailQueue, jsonMessage);
-            log.info("Email message sent to queue as JSON: {}", emailQueue);
-        } catch (JmsException e) {
-            log.error("Failed to send email message to queue: {}", e.getMessage());
+            // Queued in the caller's transaction; EmailOutboxRelay puts it on the broker after commit
+            outboxEmailRepository.save(OutboxEmail.builder()
+                    .payload(objectMapper.writeValueAsString(emailMessage))
+                    .status(OutboxEmail.Status.PENDING)
+                    .nextAttemptAt(LocalDateTime.now())
+                    .build());
         } catch (JsonProcessingException e) {
-            log.error("Failed to convert email message to JSON: {}", e.getMessage());
+            throw new IllegalStateException("Failed to convert email message to JSON", e);
         }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
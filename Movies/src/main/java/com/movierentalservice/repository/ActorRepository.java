@@ -4,6 +4,7 @@ import com.movierentalservice.entity.Actor;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +14,9 @@ public interface ActorRepository extends JpaRepository<Actor, Long> {
     Optional<Actor> findByName(String name);
     
     List<Actor> findByNameContainingIgnoreCase(String name);
+    
+    List<Actor> findByNormalizedNameIn(Collection<String> normalizedNames);
+    
+    // Rows written before the normalized name existed, backfilled at startup
+    List<Actor> findByNormalizedNameIsNull();
 } 
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.movierentalservice.entity.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +16,9 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     boolean existsByNameIgnoreCase(String name);
 
     List<Category> findByNameContainingIgnoreCase(String name);
+    
+    List<Category> findByNormalizedNameIn(Collection<String> normalizedNames);
+    
+    // Rows written before the normalized name existed, backfilled at startup
+    List<Category> findByNormalizedNameIsNull();
 } 
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.movierentalservice.repository;
+
+import com.movierentalservice.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    
+    /**
+     * Plain insert rather than save(), which would merge into an existing row. A concurrent
+     * request with the same key fails here on the primary key instead.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (id, request_hash, response_body, created_at) " +
+           "VALUES (:id, :requestHash, :responseBody, :createdAt)",
+           nativeQuery = true)
+    int insert(@Param("id") String id,
+               @Param("requestHash") String requestHash,
+               @Param("responseBody") String responseBody,
+               @Param("createdAt") LocalDateTime createdAt);
+    
+    // Fills in the response of a key claimed earlier in the same transaction
+    @Modifying
+    @Query(value = "UPDATE idempotency_keys SET response_body = :responseBody WHERE id = :id", nativeQuery = true)
+    int updateResponseBody(@Param("id") String id, @Param("responseBody") String responseBody);
+    
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :before")
+    int deleteByCreatedAtBefore(@Param("before") LocalDateTime before);
+} 
@@ -0,0 +1,57 @@
+package com.movierentalservice.repository;
+
+import com.movierentalservice.entity.MovieRentalStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MovieRentalStatsRepository extends JpaRepository<MovieRentalStats, Long> {
+    
+    @Query("SELECT m.id AS movieId, m.title AS title, s.orderedCount AS orderedCount, s.takenCount AS takenCount " +
+           "FROM MovieRentalStats s JOIN Movie m ON m.id = s.movieId " +
+           "WHERE s.orderedCount + s.takenCount > 0 " +
+           "ORDER BY s.orderedCount + s.takenCount DESC, m.id")
+    List<MovieOut> findMostOut(Pageable pageable);
+    
+    interface MovieOut {
+        
+        Long getMovieId();
+        
+        String getTitle();
+        
+        long getOrderedCount();
+        
+        long getTakenCount();
+    }
+    
+    @Modifying
+    @Query(value = "UPDATE movie_rental_stats SET ordered_count = ordered_count + :ordered, " +
+           "taken_count = taken_count + :taken WHERE movie_id = :movieId",
+           nativeQuery = true)
+    int increment(@Param("movieId") Long movieId, @Param("ordered") long ordered, @Param("taken") long taken);
+    
+    // Inserts nothing when a concurrent writer created the row first
+    @Modifying
+    @Query(value = "INSERT INTO movie_rental_stats (movie_id, ordered_count, taken_count) " +
+           "VALUES (:movieId, :ordered, :taken) ON CONFLICT DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("movieId") Long movieId, @Param("ordered") long ordered, @Param("taken") long taken);
+    
+    @Modifying
+    @Query("DELETE FROM MovieRentalStats")
+    int deleteAllRows();
+    
+    @Modifying
+    @Query(value = "INSERT INTO movie_rental_stats (movie_id, ordered_count, taken_count) " +
+           "SELECT movie_id, SUM(CASE WHEN status = 'ORDERED' THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN status = 'TAKEN' THEN 1 ELSE 0 END) " +
+           "FROM rentals WHERE status IN ('ORDERED', 'TAKEN') GROUP BY movie_id",
+           nativeQuery = true)
+    int rebuild();
+}
@@ -1,15 +1,20 @@
 package com.movierentalservice.repository;
 
 import com.movierentalservice.entity.Movie;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 @Repository
-public interface MovieRepository extends JpaRepository<Movie, Long> {
+public interface MovieRepository extends JpaRepository<Movie, Long>, JpaSpecificationExecutor<Movie> {
     
     List<Movie> findByTitleContainingIgnoreCase(String title);
     
@@ -17,6 +22,10 @@ public interface MovieRepository extends JpaRepository<Movie, Long> {
 
     Optional<Movie> findByTitle(String title);
     
+    // Detail view: actors and categories come back in the same statement as the movie
+    @EntityGraph(attributePaths = {"actors", "categories"})
+    Optional<Movie> findWithDetailsById(Long id);
+    
     List<Movie> findByDescriptionContainingIgnoreCase(String description);
     
     List<Movie> findByDirectorContainingIgnoreCase(String director);
@@ -35,6 +44,121 @@ public interface MovieRepository extends JpaRepository<Movie, Long> {
            "LOWER(m.director) LIKE LOWER(CONCAT('%', :search, '%'))")
     List<Movie> searchMovies(@Param("search") String search);
     
-    @Query("SELECT m FROM Movie m WHERE m.stockQuantity > 0")
+    @Query("SELECT m FROM Movie m WHERE m.stockQuantity > 0 ORDER BY m.id")
     List<Movie> findAvailableMovies();
-} 
\ No newline at end of file
+    
+    @Query("SELECT m.id FROM Movie m ORDER BY m.id")
+    List<Long> findAllIds();
+    
+    @Query("SELECT m.id FROM Movie m WHERE m.stockQuantity > 0 ORDER BY m.id")
+    List<Long> findAvailableIds();
+    
+    /**
+     * Reads the stock and locks the movie row until the transaction ends. Waitlist changes
+     * for one movie take this lock so joining and handing over copies never interleave.
+     */
+    @Query(value = "SELECT stock_quantity FROM movies WHERE id = :movieId FOR UPDATE", nativeQuery = true)
+    Optional<Integer> lockStockQuantityById(@Param("movieId") Long movieId);
+    
+    // Stock and rating aggregates with the version they belong to, for the in-memory indexes
+    @Query("SELECT m.stockQuantity AS stockQuantity, m.averageRating AS averageRating, " +
+           "m.ratingCount AS ratingCount, m.version AS version FROM Movie m WHERE m.id = :movieId")
+    Optional<MovieState> findStateById(@Param("movieId") Long movieId);
+    
+    interface MovieState {
+        
+        Integer getStockQuantity();
+        
+        Double getAverageRating();
+        
+        Integer getRatingCount();
+        
+        Long getVersion();
+    }
+    
+    /**
+     * Takes one copy out of stock if any is left. The check and the decrement are a single
+     * statement, so concurrent rentals can never take the stock below zero.
+     *
+     * @return 1 if a copy was reserved, 0 if the movie is out of stock or does not exist
+     */
+    @Modifying
+    @Query("UPDATE Movie m SET m.stockQuantity = m.stockQuantity - 1, m.version = m.version + 1 " +
+           "WHERE m.id = :movieId AND m.stockQuantity > 0")
+    int reserveStock(@Param("movieId") Long movieId);
+    
+    /**
+     * Takes one copy of each movie out of stock in one statement. Callers compare the result
+     * with the number of movies and roll back when some were out of stock or missing.
+     *
+     * @return the number of movies a copy was reserved for
+     */
+    @Modifying
+    @Query("UPDATE Movie m SET m.stockQuantity = m.stockQuantity - 1, m.version = m.version + 1 " +
+           "WHERE m.id IN :movieIds AND m.stockQuantity > 0")
+    int reserveStock(@Param("movieIds") Collection<Long> movieIds);
+    
+    /**
+     * Puts one copy back into stock
+     *
+     * @return 1 if the movie exists, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE Movie m SET m.stockQuantity = m.stockQuantity + 1, m.version = m.version + 1 " +
+           "WHERE m.id = :movieId")
+    int releaseStock(@Param("movieId") Long movieId);
+    
+    /**
+     * Puts several copies back into stock at once
+     *
+     * @return 1 if the movie exists, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE Movie m SET m.stockQuantity = m.stockQuantity + :copies, m.version = m.version + 1 " +
+           "WHERE m.id = :movieId")
+    int releaseStock(@Param("movieId") Long movieId, @Param("copies") int copies);
+    
+    // Keyset scan over the whole catalog, used to (re)build the in-memory indexes
+    List<Movie> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    /**
+     * Applies a rating change to the denormalized aggregates in one statement, so concurrent
+     * ratings of the same movie never overwrite each other.
+     */
+    @Modifying
+    @Query("UPDATE Movie m SET m.ratingSum = m.ratingSum + :sumDelta, " +
+           "m.ratingCount = m.ratingCount + :countDelta, " +
+           "m.averageRating = (m.ratingSum + :sumDelta) * 1.0 / (m.ratingCount + :countDelta), " +
+           "m.version = m.version + 1 " +
+           "WHERE m.id = :movieId")
+    int applyRatingChange(@Param("movieId") Long movieId,
+                          @Param("sumDelta") long sumDelta,
+                          @Param("countDelta") int countDelta);
+    
+    /**
+     * Movies whose rating aggregates no longer match the ratings table
+     */
+    @Query(value = "SELECT m.id FROM movies m LEFT JOIN ratings r ON r.movie_id = m.id " +
+           "GROUP BY m.id, m.rating_sum, m.rating_count " +
+           "HAVING m.rating_sum IS DISTINCT FROM COALESCE(SUM(r.rating), 0) " +
+           "OR m.rating_count IS DISTINCT FROM COUNT(r.id)",
+           nativeQuery = true)
+    List<Long> findIdsWithDriftedRatingAggregates();
+    
+    /**
+     * Rebuilds the rating aggregates of the given movies from the ratings table, touching only rows that drifted.
+     *
+     * @return the number of movies whose aggregates were corrected
+     */
+    @Modifying
+    @Query(value = "UPDATE movies m SET rating_sum = s.total, rating_count = s.cnt, " +
+           "average_rating = CASE WHEN s.cnt > 0 THEN CAST(s.total AS double precision) / s.cnt ELSE 0 END, " +
+           "version = m.version + 1 " +
+           "FROM (SELECT mv.id AS movie_id, COALESCE(SUM(r.rating), 0) AS total, COUNT(r.id) AS cnt " +
+           "      FROM movies mv LEFT JOIN ratings r ON r.movie_id = mv.id " +
+           "      WHERE mv.id IN (:movieIds) GROUP BY mv.id) s " +
+           "WHERE m.id = s.movie_id " +
+           "AND (m.rating_sum IS DISTINCT FROM s.total OR m.rating_count IS DISTINCT FROM s.cnt)",
+           nativeQuery = true)
+    int reconcileRatingAggregates(@Param("movieIds") Collection<Long> movieIds);
+}
\ No newline at end of file
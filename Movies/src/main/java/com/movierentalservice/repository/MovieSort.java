@@ -0,0 +1,72 @@
+package com.movierentalservice.repository;
+
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Sort;
+
+import com.movierentalservice.entity.Movie;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A sort order for movie listings. Every order ends with the movie id, which makes it
+ * total and lets pages be fetched by keyset.
+ */
+@Getter
+@RequiredArgsConstructor
+public class MovieSort {
+    
+    public static final MovieSort BY_ID = new MovieSort(Field.ID, false);
+    
+    private final Field field;
+    private final boolean descending;
+    
+    /**
+     * Parse a sort parameter such as {@code title} or {@code -averageRating} (descending)
+     *
+     * @param parameter the request parameter, may be null
+     * @return the parsed sort, or null when no sort was requested
+     */
+    public static MovieSort parse(String parameter) {
+        if (parameter == null || parameter.isBlank()) {
+            return null;
+        }
+        boolean descending = parameter.startsWith("-");
+        String name = descending ? parameter.substring(1) : parameter;
+        for (Field field : Field.values()) {
+            if (field != Field.ID && field.attribute.equals(name)) {
+                return new MovieSort(field, descending);
+            }
+        }
+        throw new IllegalArgumentException("Unsupported sort: " + parameter);
+    }
+    
+    public Sort toSort() {
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        if (field == Field.ID) {
+            return Sort.by(direction, "id");
+        }
+        return Sort.by(direction, field.attribute, "id");
+    }
+    
+    public Comparable<?> keyOf(Movie movie) {
+        return field.extractor.apply(movie);
+    }
+    
+    @Getter
+    @RequiredArgsConstructor
+    public enum Field {
+        ID("id", false, Movie::getId, Long::valueOf),
+        TITLE("title", false, Movie::getTitle, value -> value),
+        RELEASE_YEAR("releaseYear", true, Movie::getReleaseYear, Integer::valueOf),
+        AVERAGE_RATING("averageRating", false, Movie::getAverageRating, Double::valueOf),
+        CREATED_AT("createdAt", false, Movie::getCreatedAt, LocalDateTime::parse);
+        
+        private final String attribute;
+        private final boolean nullable;
+        private final Function<Movie, Comparable<?>> extractor;
+        private final Function<String, Comparable<?>> parser;
+    }
+}
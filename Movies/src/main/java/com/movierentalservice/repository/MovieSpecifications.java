@@ -0,0 +1,100 @@
+package com.movierentalservice.repository;
+
+import java.util.Collection;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.movierentalservice.entity.Category;
+import com.movierentalservice.entity.Movie;
+
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+/**
+ * Composable query predicates for {@link Movie}. Every filter of {@code GET /movies}
+ * maps to one of these so that any combination becomes a single SQL statement.
+ */
+public final class MovieSpecifications {
+
+    private MovieSpecifications() {
+    }
+
+    public static Specification<Movie> inCategory(String categoryName) {
+        return (root, query, cb) -> {
+            // Use a subquery rather than a join so the outer query never needs DISTINCT
+            Subquery<Long> subquery = query.subquery(Long.class);
+            Root<Movie> movie = subquery.correlate(root);
+            Join<Movie, Category> category = movie.join("categories");
+            subquery.select(category.get("id"))
+                    .where(cb.equal(cb.lower(category.get("name")), categoryName.toLowerCase()));
+            return cb.exists(subquery);
+        };
+    }
+
+    public static Specification<Movie> releasedIn(Integer year) {
+        return (root, query, cb) -> cb.equal(root.get("releaseYear"), year);
+    }
+
+    public static Specification<Movie> inStock(boolean available) {
+        return (root, query, cb) -> available
+                ? cb.greaterThan(root.get("stockQuantity"), 0)
+                : cb.lessThanOrEqualTo(root.get("stockQuantity"), 0);
+    }
+    
+    public static Specification<Movie> textContains(String search) {
+        return (root, query, cb) -> {
+            String pattern = "%" + search.toLowerCase() + "%";
+            return cb.or(
+                    cb.like(cb.lower(root.get("title")), pattern),
+                    cb.like(cb.lower(root.get("description")), pattern),
+                    cb.like(cb.lower(root.get("director")), pattern));
+        };
+    }
+
+    public static Specification<Movie> idIn(Collection<Long> movieIds) {
+        return (root, query, cb) -> root.get("id").in(movieIds);
+    }
+    
+    public static Specification<Movie> averageRatingAtLeast(Double rating) {
+        // Unrated movies never match, whatever the threshold
+        return (root, query, cb) -> cb.and(
+                cb.greaterThan(root.get("ratingCount"), 0),
+                cb.greaterThanOrEqualTo(root.get("averageRating"), rating));
+    }
+    
+    /**
+     * Keyset predicate selecting the rows that follow {@code (key, id)} in the given order.
+     * The leading range on the sort key lets the database seek straight into the
+     * {@code (key, id)} index, so deep pages cost the same as the first one.
+     * Null keys are placed the way PostgreSQL orders them: last ascending, first descending.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Movie> after(MovieSort sort, Comparable key, Long id) {
+        return (root, query, cb) -> {
+            Path<Long> idPath = root.get("id");
+            if (sort.getField() == MovieSort.Field.ID) {
+                return sort.isDescending() ? cb.lessThan(idPath, id) : cb.greaterThan(idPath, id);
+            }
+            
+            Path<Comparable> keyPath = root.get(sort.getField().getAttribute());
+            if (key == null) {
+                Predicate tieBreak = sort.isDescending() ? cb.lessThan(idPath, id) : cb.greaterThan(idPath, id);
+                Predicate nullTail = cb.and(cb.isNull(keyPath), tieBreak);
+                return sort.isDescending() ? cb.or(nullTail, cb.isNotNull(keyPath)) : nullTail;
+            }
+            
+            Predicate following = sort.isDescending()
+                    ? cb.and(cb.lessThanOrEqualTo(keyPath, key),
+                            cb.or(cb.lessThan(keyPath, key), cb.lessThan(idPath, id)))
+                    : cb.and(cb.greaterThanOrEqualTo(keyPath, key),
+                            cb.or(cb.greaterThan(keyPath, key), cb.greaterThan(idPath, id)));
+            if (sort.getField().isNullable() && !sort.isDescending()) {
+                return cb.or(following, cb.isNull(keyPath));
+            }
+            return following;
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.movierentalservice.repository;
+
+import com.movierentalservice.entity.RatingHourlyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RatingHourlyStatsRepository extends JpaRepository<RatingHourlyStats, LocalDateTime> {
+    
+    List<RatingHourlyStats> findByBucketGreaterThanEqualAndBucketLessThanOrderByBucketAsc(LocalDateTime from, LocalDateTime to);
+    
+    @Modifying
+    @Query(value = "UPDATE rating_hourly_stats SET ratings = ratings + :delta WHERE bucket = :bucket", nativeQuery = true)
+    int increment(@Param("bucket") LocalDateTime bucket, @Param("delta") long delta);
+    
+    // Inserts nothing when a concurrent writer created the row first
+    @Modifying
+    @Query(value = "INSERT INTO rating_hourly_stats (bucket, ratings) VALUES (:bucket, :delta) ON CONFLICT DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("bucket") LocalDateTime bucket, @Param("delta") long delta);
+    
+    @Modifying
+    @Query("DELETE FROM RatingHourlyStats s WHERE s.bucket < :cutoff")
+    int deleteBucketsBefore(@Param("cutoff") LocalDateTime cutoff);
+    
+    // Rebuilds the buckets before the cutoff from the ratings table
+    @Modifying
+    @Query(value = "INSERT INTO rating_hourly_stats (bucket, ratings) " +
+           "SELECT date_trunc('hour', created_at), COUNT(*) FROM ratings " +
+           "WHERE created_at < :cutoff GROUP BY date_trunc('hour', created_at)",
+           nativeQuery = true)
+    int rebuild(@Param("cutoff") LocalDateTime cutoff);
+}
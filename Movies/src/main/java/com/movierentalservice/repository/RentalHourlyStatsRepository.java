@@ -0,0 +1,48 @@
+package com.movierentalservice.repository;
+
+import com.movierentalservice.entity.RentalHourlyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RentalHourlyStatsRepository extends JpaRepository<RentalHourlyStats, RentalHourlyStats.Key> {
+    
+    List<RentalHourlyStats> findByBucketGreaterThanEqualAndBucketLessThanOrderByBucketAsc(LocalDateTime from, LocalDateTime to);
+    
+    @Modifying
+    @Query(value = "UPDATE rental_hourly_stats SET rentals = rentals + :delta WHERE bucket = :bucket AND status = :status",
+           nativeQuery = true)
+    int increment(@Param("bucket") LocalDateTime bucket, @Param("status") String status, @Param("delta") long delta);
+    
+    // Inserts nothing when a concurrent writer created the row first
+    @Modifying
+    @Query(value = "INSERT INTO rental_hourly_stats (bucket, status, rentals) VALUES (:bucket, :status, :delta) " +
+           "ON CONFLICT DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("bucket") LocalDateTime bucket, @Param("status") String status, @Param("delta") long delta);
+    
+    @Modifying
+    @Query("DELETE FROM RentalHourlyStats s WHERE s.bucket < :cutoff")
+    int deleteBucketsBefore(@Param("cutoff") LocalDateTime cutoff);
+    
+    /**
+     * Rebuilds the buckets before the cutoff from the rentals table: orders by creation time,
+     * pick-ups by taken_at, and returns and cancellations by the time of their last change
+     */
+    @Modifying
+    @Query(value = "INSERT INTO rental_hourly_stats (bucket, status, rentals) " +
+           "SELECT bucket, status, COUNT(*) FROM (" +
+           "  SELECT date_trunc('hour', created_at) AS bucket, 'ORDERED' AS status FROM rentals " +
+           "  UNION ALL SELECT date_trunc('hour', taken_at), 'TAKEN' FROM rentals WHERE taken_at IS NOT NULL " +
+           "  UNION ALL SELECT date_trunc('hour', updated_at), status FROM rentals " +
+           "  WHERE status IN ('RETURNED', 'CANCELLED')" +
+           ") changes WHERE bucket < :cutoff GROUP BY bucket, status",
+           nativeQuery = true)
+    int rebuild(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,12 +1,22 @@
 package com.movierentalservice.repository;
 
+import com.movierentalservice.dto.RentalDto;
 import com.movierentalservice.entity.Rental;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface RentalRepository extends JpaRepository<Rental, Long> {
@@ -35,4 +45,134 @@ public interface RentalRepository extends JpaRepository<Rental, Long> {
     List<Rental> findByUserIdAndStatusOrderByRentalDateDesc(Long userId, Rental.RentalStatus status);
     
     List<Rental> findByMovieIdAndStatusOrderByRentalDateDesc(Long movieId, Rental.RentalStatus status);
+    
+    /**
+     * Admin listing, newest first, read as DTOs in one joined statement. Null filters match
+     * everything; a non-null {@code afterDate}/{@code afterId} resumes after that rental.
+     */
+    @Query("SELECT new com.movierentalservice.dto.RentalDto(r.id, u.id, u.fullName, m.id, m.title, r.rentalCode, " +
+           "r.rentalDate, r.returnDate, r.status) " +
+           "FROM Rental r JOIN r.user u JOIN r.movie m " +
+           "WHERE (:email IS NULL OR u.email = :email) " +
+           "AND (:status IS NULL OR r.status = :status) " +
+           "AND (:movieId IS NULL OR m.id = :movieId) " +
+           "AND (:rentalCode IS NULL OR UPPER(r.rentalCode) LIKE CONCAT('%', UPPER(:rentalCode), '%')) " +
+           "AND (:from IS NULL OR r.rentalDate >= :from) " +
+           "AND (:to IS NULL OR r.rentalDate < :to) " +
+           "AND (:afterId IS NULL OR r.rentalDate < :afterDate OR (r.rentalDate = :afterDate AND r.id < :afterId)) " +
+           "ORDER BY r.rentalDate DESC, r.id DESC")
+    List<RentalDto> search(@Param("email") String email,
+                           @Param("status") Rental.RentalStatus status,
+                           @Param("movieId") Long movieId,
+                           @Param("rentalCode") String rentalCode,
+                           @Param("from") LocalDateTime from,
+                           @Param("to") LocalDateTime to,
+                           @Param("afterDate") LocalDateTime afterDate,
+                           @Param("afterId") Long afterId,
+                           Pageable pageable);
+    
+    /**
+     * Streams the matching rentals as DTOs straight from a forward-only cursor, so nothing
+     * is kept in the persistence context. Null filters match everything; the stream must be
+     * consumed and closed inside a transaction.
+     */
+    @QueryHints({
+        @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.movierentalservice.dto.RentalDto(r.id, u.id, u.fullName, m.id, m.title, r.rentalCode, " +
+           "r.rentalDate, r.returnDate, r.status) " +
+           "FROM Rental r JOIN r.user u JOIN r.movie m " +
+           "WHERE (:userId IS NULL OR u.id = :userId) " +
+           "AND (:status IS NULL OR r.status = :status) " +
+           "AND (:from IS NULL OR r.rentalDate >= :from) " +
+           "AND (:to IS NULL OR r.rentalDate < :to) " +
+           "ORDER BY r.id")
+    Stream<RentalDto> streamForExport(@Param("userId") Long userId,
+                                      @Param("status") Rental.RentalStatus status,
+                                      @Param("from") LocalDateTime from,
+                                      @Param("to") LocalDateTime to);
+    
+    @Query("SELECT r FROM Rental r JOIN FETCH r.user JOIN FETCH r.movie WHERE r.id IN :ids")
+    List<Rental> findWithUserAndMovieByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Locks the next chunk of ORDERED rentals placed before the cutoff, in keyset order after
+     * the given position. Rows another sweeper holds are skipped.
+     */
+    @Query(value = "SELECT id AS id, movie_id AS movieId, user_id AS userId, rental_date AS position FROM rentals " +
+           "WHERE status = 'ORDERED' AND rental_date < :cutoff " +
+           "AND (rental_date > :afterDate OR (rental_date = :afterDate AND id > :afterId)) " +
+           "ORDER BY rental_date, id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<SweepRow> lockStaleOrders(@Param("cutoff") LocalDateTime cutoff,
+                                   @Param("afterDate") LocalDateTime afterDate,
+                                   @Param("afterId") Long afterId,
+                                   @Param("limit") int limit);
+    
+    /**
+     * Locks the next chunk of TAKEN rentals due before the cutoff that have not been
+     * reminded yet, in keyset order after the given position
+     */
+    @Query(value = "SELECT id AS id, movie_id AS movieId, user_id AS userId, return_date AS position FROM rentals " +
+           "WHERE status = 'TAKEN' AND return_date < :cutoff AND overdue_notified_at IS NULL " +
+           "AND (return_date > :afterDate OR (return_date = :afterDate AND id > :afterId)) " +
+           "ORDER BY return_date, id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<SweepRow> lockOverdueRentals(@Param("cutoff") LocalDateTime cutoff,
+                                      @Param("afterDate") LocalDateTime afterDate,
+                                      @Param("afterId") Long afterId,
+                                      @Param("limit") int limit);
+    
+    interface SweepRow {
+        
+        Long getId();
+        
+        Long getMovieId();
+        
+        Long getUserId();
+        
+        // The date the scan is ordered by, used as the keyset position
+        LocalDateTime getPosition();
+    }
+    
+    /**
+     * Moves a rental to a new status if it is still in one of the given statuses, setting its
+     * return date. The check and the change are one statement, so two concurrent transitions
+     * can never both apply.
+     *
+     * @return 1 if the rental moved, 0 if it does not exist or was in another status
+     */
+    @Modifying
+    @Query("UPDATE Rental r SET r.status = :to, r.returnDate = :returnDate, r.updatedAt = :now " +
+           "WHERE r.id = :id AND r.status IN :from")
+    int transition(@Param("id") Long id,
+                   @Param("from") Collection<Rental.RentalStatus> from,
+                   @Param("to") Rental.RentalStatus to,
+                   @Param("returnDate") LocalDateTime returnDate,
+                   @Param("now") LocalDateTime now);
+    
+    /**
+     * Same as {@link #transition} for picking a rental up, which records when it was taken
+     * and leaves the return date alone
+     */
+    @Modifying
+    @Query("UPDATE Rental r SET r.status = :taken, r.takenAt = :now, r.updatedAt = :now " +
+           "WHERE r.id = :id AND r.status IN :from")
+    int take(@Param("id") Long id,
+             @Param("from") Collection<Rental.RentalStatus> from,
+             @Param("taken") Rental.RentalStatus taken,
+             @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE Rental r SET r.status = :to, r.returnDate = NULL, r.updatedAt = :now " +
+           "WHERE r.id IN :ids AND r.status = :from")
+    int cancelAll(@Param("ids") Collection<Long> ids,
+                  @Param("from") Rental.RentalStatus from,
+                  @Param("to") Rental.RentalStatus to,
+                  @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE Rental r SET r.overdueNotifiedAt = :now WHERE r.id IN :ids")
+    int markOverdueNotified(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
 } 
\ No newline at end of file
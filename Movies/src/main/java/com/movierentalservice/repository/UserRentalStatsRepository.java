@@ -0,0 +1,49 @@
+package com.movierentalservice.repository;
+
+import com.movierentalservice.entity.UserRentalStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UserRentalStatsRepository extends JpaRepository<UserRentalStats, Long> {
+    
+    // Walks the (rentals, user_id) index from the top
+    @Query("SELECT u.id AS userId, u.fullName AS fullName, s.rentals AS rentals " +
+           "FROM UserRentalStats s JOIN User u ON u.id = s.userId " +
+           "ORDER BY s.rentals DESC, s.userId DESC")
+    List<Renter> findTopRenters(Pageable pageable);
+    
+    interface Renter {
+        
+        Long getUserId();
+        
+        String getFullName();
+        
+        long getRentals();
+    }
+    
+    @Modifying
+    @Query(value = "UPDATE user_rental_stats SET rentals = rentals + :delta WHERE user_id = :userId", nativeQuery = true)
+    int increment(@Param("userId") Long userId, @Param("delta") long delta);
+    
+    // Inserts nothing when a concurrent writer created the row first
+    @Modifying
+    @Query(value = "INSERT INTO user_rental_stats (user_id, rentals) VALUES (:userId, :delta) ON CONFLICT DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("delta") long delta);
+    
+    @Modifying
+    @Query("DELETE FROM UserRentalStats")
+    int deleteAllRows();
+    
+    @Modifying
+    @Query(value = "INSERT INTO user_rental_stats (user_id, rentals) SELECT user_id, COUNT(*) FROM rentals GROUP BY user_id",
+           nativeQuery = true)
+    int rebuild();
+}
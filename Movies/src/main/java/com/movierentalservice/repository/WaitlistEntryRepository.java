@@ -0,0 +1,31 @@
+package com.movierentalservice.repository;
+
+import com.movierentalservice.entity.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+    
+    // Oldest first; ids come from pooled sequences and are not ordered across instances
+    Optional<WaitlistEntry> findFirstByMovieIdAndStatusOrderByCreatedAtAscIdAsc(Long movieId, WaitlistEntry.Status status);
+    
+    Optional<WaitlistEntry> findByMovieIdAndUserIdAndStatus(Long movieId, Long userId, WaitlistEntry.Status status);
+    
+    List<WaitlistEntry> findByMovieIdAndStatusOrderByCreatedAtAscIdAsc(Long movieId, WaitlistEntry.Status status);
+    
+    boolean existsByMovieIdAndStatus(Long movieId, WaitlistEntry.Status status);
+    
+    long countByMovieIdAndStatusAndCreatedAtBefore(Long movieId, WaitlistEntry.Status status, LocalDateTime createdAt);
+    
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.movie.id = :movieId")
+    int deleteByMovieId(@Param("movieId") Long movieId);
+} 
@@ -0,0 +1,60 @@
+package com.movierentalservice.scheduler;
+
+import java.util.List;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.movierentalservice.event.MovieRatingChangedEvent;
+import com.movierentalservice.repository.MovieRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rebuilds the denormalized rating aggregates on {@code movies} from the {@code ratings} table.
+ * Runs once at startup to backfill existing data and then periodically to repair any drift.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RatingAggregateReconciler {
+    
+    private static final int BATCH_SIZE = 1000;
+    
+    private final MovieRepository movieRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    // Ahead of CatalogIndexer, so the in-memory rating facets are built from corrected aggregates
+    // and nothing derived from the drifted ones exists yet that would need refreshing
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void backfill() {
+        correct();
+    }
+    
+    @Scheduled(cron = "${movie.rating.reconcile.cron:0 30 3 * * *}")
+    @Transactional
+    public void reconcile() {
+        // Indexes and caches still hold the drifted values
+        correct().forEach(movieId -> eventPublisher.publishEvent(MovieRatingChangedEvent.corrected(movieId)));
+    }
+    
+    private List<Long> correct() {
+        List<Long> drifted = movieRepository.findIdsWithDriftedRatingAggregates();
+        for (int from = 0; from < drifted.size(); from += BATCH_SIZE) {
+            movieRepository.reconcileRatingAggregates(drifted.subList(from, Math.min(from + BATCH_SIZE, drifted.size())));
+        }
+        if (!drifted.isEmpty()) {
+            log.info("Reconciled rating aggregates for {} movies", drifted.size());
+        }
+        return drifted;
+    }
+}
@@ -0,0 +1,127 @@
+package com.movierentalservice.scheduler;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.movierentalservice.entity.Rental;
+import com.movierentalservice.event.RentalStatusChangedEvent;
+import com.movierentalservice.jms.EmailSender;
+import com.movierentalservice.repository.RentalRepository;
+import com.movierentalservice.service.WaitlistService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Expires ORDERED rentals that were never picked up, giving their copies back, and queues
+ * one reminder per TAKEN rental past its return date. Both scans walk the status/date
+ * indexes in keyset order, one chunk per transaction, so a large backlog never holds locks
+ * for long and rows locked by another instance are simply skipped.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RentalSweeper {
+    
+    private static final LocalDateTime SCAN_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    
+    private final RentalRepository rentalRepository;
+    private final WaitlistService waitlistService;
+    private final EmailSender emailSender;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${movie.rental.sweep.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${movie.rental.pickup-hours:48}")
+    private int pickupHours;
+    
+    @Scheduled(fixedDelayString = "${movie.rental.sweep.delay-ms:300000}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        int expired = scan(now.minusHours(pickupHours), true);
+        int reminded = scan(now, false);
+        if (expired > 0 || reminded > 0) {
+            log.info("Expired {} unclaimed orders and queued {} overdue reminders", expired, reminded);
+        }
+    }
+    
+    private int scan(LocalDateTime cutoff, boolean staleOrders) {
+        int processed = 0;
+        LocalDateTime afterDate = SCAN_START;
+        Long afterId = 0L;
+        while (true) {
+            LocalDateTime fromDate = afterDate;
+            Long fromId = afterId;
+            List<RentalRepository.SweepRow> chunk = transactionTemplate.execute(status -> {
+                List<RentalRepository.SweepRow> rows = staleOrders
+                        ? rentalRepository.lockStaleOrders(cutoff, fromDate, fromId, batchSize)
+                        : rentalRepository.lockOverdueRentals(cutoff, fromDate, fromId, batchSize);
+                if (!rows.isEmpty()) {
+                    if (staleOrders) {
+                        expireOrders(rows);
+                    } else {
+                        remindOverdue(rows);
+                    }
+                }
+                return rows;
+            });
+            processed += chunk.size();
+            if (chunk.size() < batchSize) {
+                return processed;
+            }
+            RentalRepository.SweepRow last = chunk.get(chunk.size() - 1);
+            afterDate = last.getPosition();
+            afterId = last.getId();
+        }
+    }
+    
+    private void expireOrders(List<RentalRepository.SweepRow> rows) {
+        List<Long> rentalIds = rows.stream()
+                .map(RentalRepository.SweepRow::getId)
+                .collect(Collectors.toList());
+        LocalDateTime now = LocalDateTime.now();
+        rentalRepository.cancelAll(rentalIds, Rental.RentalStatus.ORDERED, Rental.RentalStatus.CANCELLED, now);
+        
+        // One stock update per movie, then any waiting users get the copies first
+        Map<Long, Long> copiesByMovie = rows.stream()
+                .collect(Collectors.groupingBy(RentalRepository.SweepRow::getMovieId, Collectors.counting()));
+        copiesByMovie.forEach((movieId, copies) -> waitlistService.returnCopies(movieId, Math.toIntExact(copies)));
+        
+        // One status event per movie and user
+        rows.stream()
+                .collect(Collectors.groupingBy(row -> List.of(row.getMovieId(), row.getUserId()), Collectors.counting()))
+                .forEach((movieAndUser, rentals) -> eventPublisher.publishEvent(new RentalStatusChangedEvent(
+                        movieAndUser.get(0), movieAndUser.get(1), Rental.RentalStatus.ORDERED,
+                        Rental.RentalStatus.CANCELLED, Math.toIntExact(rentals), now)));
+    }
+    
+    private void remindOverdue(List<RentalRepository.SweepRow> rows) {
+        List<Long> rentalIds = rows.stream()
+                .map(RentalRepository.SweepRow::getId)
+                .collect(Collectors.toList());
+        
+        // Outbox rows are inserted in JDBC batches at flush
+        for (Rental rental : rentalRepository.findWithUserAndMovieByIdIn(rentalIds)) {
+            emailSender.sendOverdueReminderEmail(
+                    rental.getUser().getEmail(),
+                    rental.getUser().getFullName(),
+                    rental.getMovie().getTitle(),
+                    rental.getRentalCode(),
+                    rental.getReturnDate().format(DATE_FORMATTER)
+            );
+        }
+        rentalRepository.markOverdueNotified(rentalIds, LocalDateTime.now());
+    }
+}
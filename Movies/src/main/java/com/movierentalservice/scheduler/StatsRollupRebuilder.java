@@ -0,0 +1,68 @@
+package com.movierentalservice.scheduler;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.movierentalservice.repository.MovieRentalStatsRepository;
+import com.movierentalservice.repository.RatingHourlyStatsRepository;
+import com.movierentalservice.repository.RentalHourlyStatsRepository;
+import com.movierentalservice.repository.UserRentalStatsRepository;
+import com.movierentalservice.stats.StatsRollupUpdater;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Recomputes the dashboard rollups from the rentals and ratings tables. Fills them at startup
+ * when they are still empty, and rebuilds them periodically to repair increments that were lost.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StatsRollupRebuilder {
+    
+    private final RentalHourlyStatsRepository rentalHourlyStatsRepository;
+    private final RatingHourlyStatsRepository ratingHourlyStatsRepository;
+    private final MovieRentalStatsRepository movieRentalStatsRepository;
+    private final UserRentalStatsRepository userRentalStatsRepository;
+    private final StatsRollupUpdater statsRollupUpdater;
+    private final TransactionTemplate transactionTemplate;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (rentalHourlyStatsRepository.count() == 0 && ratingHourlyStatsRepository.count() == 0) {
+            // Nothing was ever rolled up, so every bucket up to now is recounted
+            rebuild(LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(1));
+        }
+    }
+    
+    @Scheduled(cron = "${movie.stats.rebuild.cron:0 0 4 * * *}")
+    public void rebuild() {
+        // The last full hour and the current one stay with the increments: a change made just
+        // before the hour may reach the updater only after the rebuild and would count twice
+        rebuild(LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(1));
+    }
+    
+    private void rebuild(LocalDateTime cutoff) {
+        long start = System.currentTimeMillis();
+        int[] buckets = statsRollupUpdater.rebuildBuckets(cutoff, () -> transactionTemplate.execute(status -> {
+            rentalHourlyStatsRepository.deleteBucketsBefore(cutoff);
+            ratingHourlyStatsRepository.deleteBucketsBefore(cutoff);
+            return new int[] {rentalHourlyStatsRepository.rebuild(cutoff), ratingHourlyStatsRepository.rebuild(cutoff)};
+        }));
+        
+        // Rental commits wait only until the deletes have fixed the snapshot both recounts read
+        int[] totals = statsRollupUpdater.rebuildTotals(() -> {
+            movieRentalStatsRepository.deleteAllRows();
+            userRentalStatsRepository.deleteAllRows();
+        }, () -> new int[] {movieRentalStatsRepository.rebuild(), userRentalStatsRepository.rebuild()});
+        log.info("Rebuilt dashboard rollups before {} ({} rental buckets, {} rating buckets, {} movies, {} users) in {} ms",
+                cutoff, buckets[0], buckets[1], totals[0], totals[1], System.currentTimeMillis() - start);
+    }
+}
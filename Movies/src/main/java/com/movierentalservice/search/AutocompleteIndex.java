@@ -0,0 +1,270 @@
+package com.movierentalservice.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.movierentalservice.dto.MovieDto;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Completions for titles, directors and actor names, ranked by popularity. Queries run
+ * against an immutable snapshot: every word-start suffix of every name in one sorted array,
+ * so a prefix maps to a contiguous range, plus a max segment tree over the weights to pull
+ * the best K out of that range without visiting all of it. Catalog changes only mark the
+ * snapshot stale; a background job rebuilds it from memory and swaps it in.
+ */
+@Component
+@Slf4j
+public class AutocompleteIndex implements MovieIndex {
+    
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private final Object rebuildLock = new Object();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean loaded;
+    private volatile boolean stale;
+    
+    @Override
+    public synchronized void index(MovieDto movie) {
+        Set<String> names = new LinkedHashSet<>();
+        addName(names, movie.getTitle());
+        addName(names, movie.getDirector());
+        if (movie.getActors() != null) {
+            movie.getActors().forEach(actor -> addName(names, actor));
+        }
+        int ratingCount = movie.getRatingCount() != null ? movie.getRatingCount() : 0;
+        documents.put(Math.toIntExact(movie.getId()), new Document(names.toArray(new String[0]), ratingCount));
+        stale = true;
+    }
+    
+    @Override
+    public synchronized void indexAll(Collection<MovieDto> movies) {
+        movies.forEach(this::index);
+    }
+    
+    @Override
+    public synchronized void remove(Long movieId) {
+        if (documents.remove(Math.toIntExact(movieId)) != null) {
+            stale = true;
+        }
+    }
+    
+    @Override
+    public synchronized void ratingChanged(Long movieId, double averageRating, int ratingCount) {
+        Document document = documents.get(Math.toIntExact(movieId));
+        if (document != null && document.ratingCount != ratingCount) {
+            documents.put(Math.toIntExact(movieId), new Document(document.names, ratingCount));
+            stale = true;
+        }
+    }
+    
+    @Override
+    public void loadCompleted() {
+        loaded = true;
+        rebuild();
+    }
+    
+    /**
+     * Swap in a fresh snapshot if the catalog changed since the last one was built
+     */
+    @Scheduled(fixedDelayString = "${movie.suggest.rebuild-delay-ms:2000}")
+    public void rebuildIfStale() {
+        if (loaded && stale) {
+            rebuild();
+        }
+    }
+    
+    /**
+     * Complete a prefix typed by the user
+     *
+     * @param prefix the text typed so far; matched against the start of any word of a name
+     * @param limit maximum number of completions
+     * @return names as stored in the catalog, most popular first
+     */
+    public List<String> complete(String prefix, int limit) {
+        String key = String.join(" ", TextNormalizer.tokenize(prefix));
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        return snapshot.complete(key, limit);
+    }
+    
+    private void rebuild() {
+        // Serialized so an older build can never replace a newer one
+        synchronized (rebuildLock) {
+            long start = System.currentTimeMillis();
+            List<Document> current;
+            synchronized (this) {
+                stale = false;
+                current = new ArrayList<>(documents.values());
+            }
+            snapshot = Snapshot.build(current);
+            log.debug("Rebuilt autocomplete snapshot with {} keys in {} ms",
+                    snapshot.keys.length, System.currentTimeMillis() - start);
+        }
+    }
+    
+    private static void addName(Set<String> names, String name) {
+        if (name != null && !name.isBlank()) {
+            names.add(name.trim());
+        }
+    }
+    
+    private static final class Document {
+        
+        final String[] names;
+        final int ratingCount;
+        
+        Document(String[] names, int ratingCount) {
+            this.names = names;
+            this.ratingCount = ratingCount;
+        }
+    }
+    
+    private static final class Snapshot {
+        
+        static final Snapshot EMPTY = new Snapshot(new String[0], new int[0], new String[0], new long[0]);
+        
+        // Sorted normalized keys, the name each one belongs to and that name's weight
+        final String[] keys;
+        final int[] nameIds;
+        final String[] names;
+        final long[] weights;
+        // Index of the heaviest key per node, leaves at tree[keys.length + i]
+        final int[] tree;
+        
+        Snapshot(String[] keys, int[] nameIds, String[] names, long[] weights) {
+            this.keys = keys;
+            this.nameIds = nameIds;
+            this.names = names;
+            this.weights = weights;
+            int n = keys.length;
+            this.tree = new int[2 * n];
+            for (int i = 0; i < n; i++) {
+                tree[n + i] = i;
+            }
+            for (int i = n - 1; i > 0; i--) {
+                tree[i] = heavier(tree[2 * i], tree[2 * i + 1]);
+            }
+        }
+        
+        static Snapshot build(List<Document> documents) {
+            // A name's weight is the popularity of all its movies: one per movie plus one per rating
+            Map<String, Integer> nameIds = new HashMap<>();
+            List<String> names = new ArrayList<>();
+            List<Long> nameWeights = new ArrayList<>();
+            for (Document document : documents) {
+                for (String name : document.names) {
+                    int nameId = nameIds.computeIfAbsent(TextNormalizer.normalize(name), key -> {
+                        names.add(name);
+                        nameWeights.add(0L);
+                        return names.size() - 1;
+                    });
+                    nameWeights.set(nameId, nameWeights.get(nameId) + 1 + document.ratingCount);
+                }
+            }
+            
+            // Index every word-start suffix so "knight" completes to "The Dark Knight"
+            List<String> keyList = new ArrayList<>();
+            List<Integer> keyNames = new ArrayList<>();
+            for (int nameId = 0; nameId < names.size(); nameId++) {
+                List<String> tokens = TextNormalizer.tokenize(names.get(nameId));
+                for (int i = 0; i < tokens.size(); i++) {
+                    keyList.add(String.join(" ", tokens.subList(i, tokens.size())));
+                    keyNames.add(nameId);
+                }
+            }
+            Integer[] order = new Integer[keyList.size()];
+            Arrays.setAll(order, i -> i);
+            Arrays.sort(order, Comparator.comparing(keyList::get));
+            
+            String[] keys = new String[order.length];
+            int[] keyNameIds = new int[order.length];
+            long[] weights = new long[order.length];
+            for (int i = 0; i < order.length; i++) {
+                keys[i] = keyList.get(order[i]);
+                keyNameIds[i] = keyNames.get(order[i]);
+                weights[i] = nameWeights.get(keyNameIds[i]);
+            }
+            return new Snapshot(keys, keyNameIds, names.toArray(new String[0]), weights);
+        }
+        
+        List<String> complete(String prefix, int limit) {
+            int from = lowerBound(prefix);
+            int to = lowerBound(prefix + Character.MAX_VALUE);
+            if (from >= to) {
+                return List.of();
+            }
+            
+            // Best-first over sub-ranges: take the heaviest key of a range, then split around it
+            // Ranges never overlap, so two entries never share their heaviest key
+            PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> heavier(a[2], b[2]) == a[2] ? -1 : 1);
+            ranges.add(new int[] {from, to, heaviest(from, to)});
+            List<String> completions = new ArrayList<>(limit);
+            Set<Integer> seen = new HashSet<>();
+            while (completions.size() < limit && !ranges.isEmpty()) {
+                int[] range = ranges.poll();
+                int best = range[2];
+                if (seen.add(nameIds[best])) {
+                    completions.add(names[nameIds[best]]);
+                }
+                if (range[0] < best) {
+                    ranges.add(new int[] {range[0], best, heaviest(range[0], best)});
+                }
+                if (best + 1 < range[1]) {
+                    ranges.add(new int[] {best + 1, range[1], heaviest(best + 1, range[1])});
+                }
+            }
+            return completions;
+        }
+        
+        private int lowerBound(String key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+        
+        /**
+         * Heaviest key in [from, to), found bottom-up in the segment tree
+         */
+        private int heaviest(int from, int to) {
+            int best = from;
+            for (int low = from + keys.length, high = to + keys.length; low < high; low >>= 1, high >>= 1) {
+                if ((low & 1) == 1) {
+                    best = heavier(best, tree[low++]);
+                }
+                if ((high & 1) == 1) {
+                    best = heavier(best, tree[--high]);
+                }
+            }
+            return best;
+        }
+        
+        private int heavier(int a, int b) {
+            if (weights[a] != weights[b]) {
+                return weights[a] > weights[b] ? a : b;
+            }
+            return Math.min(a, b);
+        }
+    }
+}
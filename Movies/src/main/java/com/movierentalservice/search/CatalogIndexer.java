@@ -0,0 +1,210 @@
+package com.movierentalservice.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.movierentalservice.dto.MovieDto;
+import com.movierentalservice.entity.Actor;
+import com.movierentalservice.entity.Category;
+import com.movierentalservice.entity.Movie;
+import com.movierentalservice.event.MovieCatalogChangedEvent;
+import com.movierentalservice.event.MovieRatingChangedEvent;
+import com.movierentalservice.event.MovieStockChangedEvent;
+import com.movierentalservice.event.MoviesImportedEvent;
+import com.movierentalservice.repository.MovieRepository;
+import com.movierentalservice.repository.MovieRepository.MovieState;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps every {@link MovieIndex} in step with the database: loads the full catalog
+ * once the application is ready and then applies committed admin changes one by one.
+ * Changes committed during the load are held back and replayed once it completes.
+ * Listeners run on the committing threads in no particular order, so each update
+ * carries the version of the movie row it was read from and stale ones are dropped.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogIndexer {
+    
+    private static final int PAGE_SIZE = 500;
+    
+    private final MovieRepository movieRepository;
+    private final EntityManager entityManager;
+    private final List<MovieIndex> indexes;
+    
+    // Updates that arrived before the initial load completed, guarded by itself
+    private final List<Runnable> pending = new ArrayList<>();
+    
+    // Newest applied row version per movie id, for the full document and for stock and
+    // ratings separately, since a stock re-read does not supersede the title; guarded by this
+    private long[] documentVersions = new long[1024];
+    private long[] stateVersions = new long[1024];
+    
+    private volatile boolean ready;
+    
+    /**
+     * Whether the initial load has completed; until then callers should query the database
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadCatalog() {
+        long start = System.currentTimeMillis();
+        long lastId = 0L;
+        int count = 0;
+        List<Movie> page;
+        do {
+            page = movieRepository.findByIdGreaterThanOrderByIdAsc(lastId, Pageable.ofSize(PAGE_SIZE));
+            for (Movie movie : page) {
+                applyDocument(toDocument(movie), movie.getVersion());
+                lastId = movie.getId();
+            }
+            count += page.size();
+            // Detach the page so memory stays flat however large the catalog is
+            entityManager.clear();
+        } while (page.size() == PAGE_SIZE);
+        
+        indexes.forEach(MovieIndex::loadCompleted);
+        synchronized (pending) {
+            pending.forEach(Runnable::run);
+            log.info("Indexed {} movies in {} ms, replayed {} changes made meanwhile",
+                    count, System.currentTimeMillis() - start, pending.size());
+            pending.clear();
+            ready = true;
+        }
+    }
+    
+    @TransactionalEventListener
+    public void onCatalogChanged(MovieCatalogChangedEvent event) {
+        if (event.isDeleted()) {
+            dispatch(() -> applyDeletion(event.getMovieId()));
+        } else {
+            dispatch(() -> applyDocument(event.getMovie(), event.getVersion()));
+        }
+    }
+    
+    @TransactionalEventListener
+    public void onMoviesImported(MoviesImportedEvent event) {
+        // Imported rows are inserted at version 0
+        dispatch(() -> applyDocuments(event.getMovies(), 0L));
+    }
+    
+    @TransactionalEventListener
+    public void onStockChanged(MovieStockChangedEvent event) {
+        dispatch(() -> refreshState(event.getMovieId()));
+    }
+    
+    @TransactionalEventListener
+    public void onRatingChanged(MovieRatingChangedEvent event) {
+        dispatch(() -> refreshState(event.getMovieId()));
+    }
+    
+    private void dispatch(Runnable update) {
+        synchronized (pending) {
+            if (!ready) {
+                pending.add(update);
+                return;
+            }
+        }
+        update.run();
+    }
+    
+    private void applyDocument(MovieDto movie, long version) {
+        applyDocuments(List.of(movie), version);
+    }
+    
+    private synchronized void applyDocuments(List<MovieDto> movies, long version) {
+        List<MovieDto> current = new ArrayList<>(movies.size());
+        List<Long> superseded = new ArrayList<>();
+        for (MovieDto movie : movies) {
+            int docId = Math.toIntExact(movie.getId());
+            ensureCapacity(docId);
+            if (version < documentVersions[docId]) {
+                continue;
+            }
+            documentVersions[docId] = version;
+            current.add(movie);
+            if (version < stateVersions[docId]) {
+                superseded.add(movie.getId());
+            } else {
+                stateVersions[docId] = version;
+            }
+        }
+        indexes.forEach(index -> index.indexAll(current));
+        // A later stock or rating change was already applied; the snapshots just undid it
+        superseded.forEach(this::refreshState);
+    }
+    
+    private synchronized void applyDeletion(Long movieId) {
+        int docId = Math.toIntExact(movieId);
+        ensureCapacity(docId);
+        // Ids are never reused, so nothing may bring the movie back
+        documentVersions[docId] = Long.MAX_VALUE;
+        stateVersions[docId] = Long.MAX_VALUE;
+        indexes.forEach(index -> index.remove(movieId));
+    }
+    
+    private void refreshState(Long movieId) {
+        MovieState state = movieRepository.findStateById(movieId).orElse(null);
+        if (state != null) {
+            applyState(movieId, state);
+        }
+    }
+    
+    private synchronized void applyState(Long movieId, MovieState state) {
+        int docId = Math.toIntExact(movieId);
+        ensureCapacity(docId);
+        if (state.getVersion() < stateVersions[docId]) {
+            return;
+        }
+        stateVersions[docId] = state.getVersion();
+        indexes.forEach(index -> {
+            index.stockChanged(movieId, state.getStockQuantity());
+            index.ratingChanged(movieId, state.getAverageRating(), state.getRatingCount());
+        });
+    }
+    
+    private void ensureCapacity(int docId) {
+        if (docId >= documentVersions.length) {
+            int length = Math.max(docId + 1, documentVersions.length * 2);
+            documentVersions = Arrays.copyOf(documentVersions, length);
+            stateVersions = Arrays.copyOf(stateVersions, length);
+        }
+    }
+    
+    private MovieDto toDocument(Movie movie) {
+        return MovieDto.builder()
+                .id(movie.getId())
+                .title(movie.getTitle())
+                .description(movie.getDescription())
+                .releaseYear(movie.getReleaseYear())
+                .director(movie.getDirector())
+                .actors(movie.getActors().stream()
+                        .map(Actor::getName)
+                        .collect(Collectors.toList()))
+                .categories(movie.getCategories().stream()
+                        .map(Category::getName)
+                        .collect(Collectors.toList()))
+                .averageRating(movie.getAverageRating())
+                .ratingCount(movie.getRatingCount())
+                .stockQuantity(movie.getStockQuantity())
+                .available(movie.isAvailable())
+                .build();
+    }
+}
@@ -0,0 +1,280 @@
+package com.movierentalservice.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import org.roaringbitmap.IntConsumer;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import com.movierentalservice.dto.MovieDto;
+
+/**
+ * Trigram index over movie titles, directors and actor names, for queries that may be
+ * misspelled. Every distinct name is stored once with the movies it belongs to, and each
+ * trigram lists the names containing it, so a query only visits names sharing a trigram.
+ */
+@Component
+public class FuzzyNameIndex implements MovieIndex {
+    
+    // Share of the query's trigrams a name must contain to count as a match
+    private static final float MIN_SIMILARITY = 0.5f;
+    
+    private final Map<String, RoaringBitmap> trigrams = new HashMap<>();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final List<Name> names = new ArrayList<>();
+    private final Deque<Integer> freeNameIds = new ArrayDeque<>();
+    private final Map<Integer, int[]> movieNames = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    @Override
+    public void index(MovieDto movie) {
+        Set<String> movieNameTexts = new LinkedHashSet<>();
+        movieNameTexts.add(movie.getTitle());
+        movieNameTexts.add(movie.getDirector());
+        if (movie.getActors() != null) {
+            movieNameTexts.addAll(movie.getActors());
+        }
+        
+        int docId = Math.toIntExact(movie.getId());
+        lock.writeLock().lock();
+        try {
+            removeInternal(docId);
+            // Texts that normalize alike share a name, which must be listed for the movie once
+            Set<Integer> ids = new LinkedHashSet<>();
+            for (String text : movieNameTexts) {
+                Integer nameId = acquire(text);
+                if (nameId != null && ids.add(nameId)) {
+                    names.get(nameId).movies.add(docId);
+                }
+            }
+            movieNames.put(docId, ids.stream().mapToInt(Integer::intValue).toArray());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void indexAll(Collection<MovieDto> movies) {
+        lock.writeLock().lock();
+        try {
+            movies.forEach(this::index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void remove(Long movieId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(Math.toIntExact(movieId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Search titles and people by similarity
+     *
+     * @param query free text, possibly misspelled
+     * @param limit maximum number of ids to return
+     * @param within movies to rank among, or null for the whole catalog
+     * @return matching movie ids, closest match first
+     */
+    public List<Long> search(String query, int limit, RoaringBitmap within) {
+        lock.readLock().lock();
+        try {
+            // A movie ranks by the best of its names
+            Map<Integer, Float> movieScores = new HashMap<>();
+            for (Match match : match(query)) {
+                names.get(match.nameId).movies.forEach((IntConsumer) docId -> {
+                    if (within == null || within.contains(docId)) {
+                        movieScores.merge(docId, match.score, Math::max);
+                    }
+                });
+            }
+            return movieScores.entrySet().stream()
+                    .sorted(Map.Entry.<Integer, Float>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limit)
+                    .map(entry -> (long) entry.getKey())
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Every movie with a name similar to the query, unranked
+     *
+     * @param query free text, possibly misspelled
+     * @return a private bitmap of matching movie ids
+     */
+    public RoaringBitmap matches(String query) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = new RoaringBitmap();
+            for (Match match : match(query)) {
+                result.or(names.get(match.nameId).movies);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Titles and people names closest to the query, for "did you mean" prompts
+     *
+     * @param query free text, possibly misspelled
+     * @param limit maximum number of suggestions
+     * @return names as stored in the catalog, closest first
+     */
+    public List<String> suggest(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return match(query).stream()
+                    .limit(limit)
+                    .map(match -> names.get(match.nameId).text)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private List<Match> match(String query) {
+        Set<String> queryTrigrams = trigramsOf(query);
+        if (queryTrigrams.isEmpty()) {
+            return List.of();
+        }
+        
+        // Count shared trigrams per name, visiting only names that share at least one
+        int[] shared = new int[names.size()];
+        List<Integer> candidates = new ArrayList<>();
+        for (String trigram : queryTrigrams) {
+            RoaringBitmap nameIdsWithTrigram = trigrams.get(trigram);
+            if (nameIdsWithTrigram != null) {
+                nameIdsWithTrigram.forEach((IntConsumer) nameId -> {
+                    if (shared[nameId]++ == 0) {
+                        candidates.add(nameId);
+                    }
+                });
+            }
+        }
+        
+        List<Match> matches = new ArrayList<>();
+        for (int nameId : candidates) {
+            float coverage = (float) shared[nameId] / queryTrigrams.size();
+            if (coverage >= MIN_SIMILARITY) {
+                int union = queryTrigrams.size() + names.get(nameId).trigramCount - shared[nameId];
+                // Coverage decides; the Jaccard term prefers names close in length to the query
+                matches.add(new Match(nameId, coverage + 0.1f * shared[nameId] / union));
+            }
+        }
+        matches.sort(Comparator.comparingDouble((Match match) -> match.score).reversed()
+                .thenComparingInt(match -> match.nameId));
+        return matches;
+    }
+    
+    private Integer acquire(String text) {
+        String key = TextNormalizer.normalize(text).trim();
+        if (key.isEmpty()) {
+            return null;
+        }
+        Integer existing = nameIds.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        
+        Set<String> nameTrigrams = trigramsOf(text);
+        int nameId = freeNameIds.isEmpty() ? names.size() : freeNameIds.pop();
+        Name name = new Name(text.trim(), key, nameTrigrams.size());
+        if (nameId == names.size()) {
+            names.add(name);
+        } else {
+            names.set(nameId, name);
+        }
+        nameIds.put(key, nameId);
+        nameTrigrams.forEach(trigram -> trigrams.computeIfAbsent(trigram, t -> new RoaringBitmap()).add(nameId));
+        return nameId;
+    }
+    
+    private void removeInternal(int docId) {
+        int[] previousNames = movieNames.remove(docId);
+        if (previousNames == null) {
+            return;
+        }
+        for (int nameId : previousNames) {
+            Name name = names.get(nameId);
+            name.movies.remove(docId);
+            if (name.movies.isEmpty()) {
+                release(nameId, name);
+            }
+        }
+    }
+    
+    private void release(int nameId, Name name) {
+        for (String trigram : trigramsOf(name.text)) {
+            RoaringBitmap nameIdsWithTrigram = trigrams.get(trigram);
+            nameIdsWithTrigram.remove(nameId);
+            if (nameIdsWithTrigram.isEmpty()) {
+                trigrams.remove(trigram);
+            }
+        }
+        nameIds.remove(name.key);
+        names.set(nameId, null);
+        freeNameIds.push(nameId);
+    }
+    
+    /**
+     * Trigrams of each word padded the way pg_trgm does, two spaces in front and one behind,
+     * so word starts weigh more than word ends
+     */
+    private static Set<String> trigramsOf(String text) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String token : TextNormalizer.tokenize(text)) {
+            String padded = "  " + token + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                result.add(padded.substring(i, i + 3));
+            }
+        }
+        return result;
+    }
+    
+    private static final class Name {
+        
+        final String text;
+        final String key;
+        final int trigramCount;
+        final RoaringBitmap movies = new RoaringBitmap();
+        
+        Name(String text, String key, int trigramCount) {
+            this.text = text;
+            this.key = key;
+            this.trigramCount = trigramCount;
+        }
+    }
+    
+    private static final class Match {
+        
+        final int nameId;
+        final float score;
+        
+        Match(int nameId, float score) {
+            this.nameId = nameId;
+            this.score = score;
+        }
+    }
+}
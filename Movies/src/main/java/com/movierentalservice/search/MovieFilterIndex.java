@@ -0,0 +1,306 @@
+package com.movierentalservice.search;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.roaringbitmap.IntConsumer;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import com.movierentalservice.dto.MovieDto;
+import com.movierentalservice.dto.MovieFacetsDto;
+
+/**
+ * Compressed bitmaps of movie ids per category, per release year, per whole-star rating
+ * and for movies in stock. Combined filters and facet counts are answered by intersecting
+ * bitmaps instead of scanning movies.
+ */
+@Component
+public class MovieFilterIndex implements MovieIndex {
+    
+    private final Map<String, RoaringBitmap> byCategory = new HashMap<>();
+    private final Map<String, String> categoryNames = new HashMap<>();
+    private final Map<Integer, RoaringBitmap> byYear = new HashMap<>();
+    // Keyed by whole stars, 0 holding the movies nobody has rated
+    private final Map<Integer, RoaringBitmap> byRating = new HashMap<>();
+    // Exact averages addressed by movie id, for the one bucket a fractional threshold splits
+    private double[] ratings = new double[1024];
+    private final RoaringBitmap inStock = new RoaringBitmap();
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    @Override
+    public void index(MovieDto movie) {
+        int docId = Math.toIntExact(movie.getId());
+        lock.writeLock().lock();
+        try {
+            removeInternal(docId);
+            all.add(docId);
+            if (movie.getCategories() != null) {
+                for (String category : movie.getCategories()) {
+                    String key = categoryKey(category);
+                    byCategory.computeIfAbsent(key, k -> new RoaringBitmap()).add(docId);
+                    categoryNames.put(key, category);
+                }
+            }
+            if (movie.getReleaseYear() != null) {
+                byYear.computeIfAbsent(movie.getReleaseYear(), year -> new RoaringBitmap()).add(docId);
+            }
+            if (movie.getStockQuantity() != null && movie.getStockQuantity() > 0) {
+                inStock.add(docId);
+            }
+            setRating(docId, movie.getAverageRating() != null ? movie.getAverageRating() : 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void indexAll(Collection<MovieDto> movies) {
+        lock.writeLock().lock();
+        try {
+            movies.forEach(this::index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void remove(Long movieId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(Math.toIntExact(movieId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void stockChanged(Long movieId, int stockQuantity) {
+        int docId = Math.toIntExact(movieId);
+        lock.writeLock().lock();
+        try {
+            if (!all.contains(docId)) {
+                return;
+            }
+            if (stockQuantity > 0) {
+                inStock.add(docId);
+            } else {
+                inStock.remove(docId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void ratingChanged(Long movieId, double averageRating, int ratingCount) {
+        int docId = Math.toIntExact(movieId);
+        lock.writeLock().lock();
+        try {
+            if (!all.contains(docId)) {
+                return;
+            }
+            RoaringBitmap previous = byRating.get(stars(ratings[docId]));
+            if (previous != null) {
+                previous.remove(docId);
+            }
+            setRating(docId, averageRating);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void loadCompleted() {
+        lock.writeLock().lock();
+        try {
+            // Convert dense stretches of ids to run containers now that the bulk load is done
+            byCategory.values().forEach(RoaringBitmap::runOptimize);
+            byYear.values().forEach(RoaringBitmap::runOptimize);
+            byRating.values().forEach(RoaringBitmap::runOptimize);
+            inStock.runOptimize();
+            all.runOptimize();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Intersect the bitmaps of the given filters
+     *
+     * @param category category name, matched case-insensitively, or null
+     * @param year release year, or null
+     * @param minRating minimum average rating of rated movies, or null
+     * @param available true for movies in stock, false for movies out of stock, or null
+     * @return a private bitmap of matching movie ids, or null when no filter was given
+     */
+    public RoaringBitmap filter(String category, Integer year, Double minRating, Boolean available) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = null;
+            if (category != null && !category.isEmpty()) {
+                result = intersect(result, byCategory.get(categoryKey(category)));
+            }
+            if (year != null) {
+                result = intersect(result, byYear.get(year));
+            }
+            if (minRating != null) {
+                result = intersect(result, ratedAtLeast(minRating));
+            }
+            if (available != null) {
+                result = available
+                        ? intersect(result, inStock)
+                        : RoaringBitmap.andNot(result != null ? result : all, inStock);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Count the movies matching the given filters per category, year, decade, rating and
+     * availability. Each facet is counted with its own filter left out, so the alternatives
+     * to a selected value keep their counts.
+     *
+     * @param textMatches movies matching the text query, or null when there is none
+     * @param category category name, matched case-insensitively, or null
+     * @param year release year, or null
+     * @param minRating minimum average rating of rated movies, or null
+     * @param available true for movies in stock, false for movies out of stock, or null
+     */
+    public MovieFacetsDto facets(RoaringBitmap textMatches, String category, Integer year,
+                                 Double minRating, Boolean available) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap categoryFilter = null;
+            if (category != null && !category.isEmpty()) {
+                categoryFilter = byCategory.getOrDefault(categoryKey(category), new RoaringBitmap());
+            }
+            RoaringBitmap yearFilter = year != null ? byYear.getOrDefault(year, new RoaringBitmap()) : null;
+            RoaringBitmap ratingFilter = minRating != null ? ratedAtLeast(minRating) : null;
+            RoaringBitmap availabilityFilter = null;
+            if (available != null) {
+                availabilityFilter = available ? inStock : RoaringBitmap.andNot(all, inStock);
+            }
+            
+            Map<String, Long> categories = new TreeMap<>();
+            RoaringBitmap base = intersectAll(textMatches, yearFilter, ratingFilter, availabilityFilter);
+            byCategory.forEach((key, bitmap) -> putCount(categories, categoryNames.get(key), base, bitmap));
+            
+            Map<Integer, Long> years = new TreeMap<>();
+            Map<Integer, Long> decades = new TreeMap<>();
+            RoaringBitmap yearBase = intersectAll(textMatches, categoryFilter, ratingFilter, availabilityFilter);
+            byYear.forEach((releaseYear, bitmap) -> putCount(years, releaseYear, yearBase, bitmap));
+            years.forEach((releaseYear, count) -> decades.merge(Math.floorDiv(releaseYear, 10) * 10, count, Long::sum));
+            
+            Map<Integer, Long> ratingCounts = new TreeMap<>();
+            RoaringBitmap ratingBase = intersectAll(textMatches, categoryFilter, yearFilter, availabilityFilter);
+            byRating.forEach((stars, bitmap) -> putCount(ratingCounts, stars, ratingBase, bitmap));
+            
+            RoaringBitmap availabilityBase = intersectAll(textMatches, categoryFilter, yearFilter, ratingFilter);
+            long inStockCount = RoaringBitmap.andCardinality(availabilityBase, inStock);
+            
+            return MovieFacetsDto.builder()
+                    .total(intersectAll(textMatches, categoryFilter, yearFilter, ratingFilter, availabilityFilter)
+                            .getLongCardinality())
+                    .categories(categories)
+                    .years(years)
+                    .decades(decades)
+                    .ratings(ratingCounts)
+                    .available(inStockCount)
+                    .unavailable(availabilityBase.getLongCardinality() - inStockCount)
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private RoaringBitmap ratedAtLeast(double minRating) {
+        RoaringBitmap result = new RoaringBitmap();
+        for (Map.Entry<Integer, RoaringBitmap> entry : byRating.entrySet()) {
+            int stars = entry.getKey();
+            if (stars == 0) {
+                continue;
+            }
+            if (stars >= minRating) {
+                result.or(entry.getValue());
+            } else if (stars + 1 > minRating) {
+                entry.getValue().forEach((IntConsumer) docId -> {
+                    if (ratings[docId] >= minRating) {
+                        result.add(docId);
+                    }
+                });
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Intersect the catalog with every filter that is set; the result is read-only
+     */
+    private RoaringBitmap intersectAll(RoaringBitmap... filters) {
+        RoaringBitmap result = all;
+        for (RoaringBitmap filter : filters) {
+            if (filter != null) {
+                result = RoaringBitmap.and(result, filter);
+            }
+        }
+        return result;
+    }
+    
+    private static <K> void putCount(Map<K, Long> counts, K key, RoaringBitmap base, RoaringBitmap bitmap) {
+        long count = RoaringBitmap.andCardinality(base, bitmap);
+        if (count > 0) {
+            counts.put(key, count);
+        }
+    }
+    
+    private void setRating(int docId, double averageRating) {
+        if (docId >= ratings.length) {
+            ratings = Arrays.copyOf(ratings, Math.max(docId + 1, ratings.length * 2));
+        }
+        ratings[docId] = averageRating;
+        byRating.computeIfAbsent(stars(averageRating), stars -> new RoaringBitmap()).add(docId);
+    }
+    
+    private static int stars(double averageRating) {
+        return Math.max(0, Math.min(5, (int) Math.floor(averageRating)));
+    }
+    
+    private void removeInternal(int docId) {
+        if (!all.checkedRemove(docId)) {
+            return;
+        }
+        // A movie sits in a handful of bitmaps; visiting every category and year is cheaper
+        // than keeping a reverse mapping for each of millions of movies
+        byCategory.entrySet().removeIf(entry -> {
+            boolean emptied = entry.getValue().checkedRemove(docId) && entry.getValue().isEmpty();
+            if (emptied) {
+                categoryNames.remove(entry.getKey());
+            }
+            return emptied;
+        });
+        byYear.values().removeIf(bitmap -> bitmap.checkedRemove(docId) && bitmap.isEmpty());
+        byRating.values().removeIf(bitmap -> bitmap.checkedRemove(docId) && bitmap.isEmpty());
+        ratings[docId] = 0;
+        inStock.remove(docId);
+    }
+    
+    private static RoaringBitmap intersect(RoaringBitmap current, RoaringBitmap filter) {
+        if (filter == null) {
+            return new RoaringBitmap();
+        }
+        return current == null ? filter.clone() : RoaringBitmap.and(current, filter);
+    }
+    
+    private static String categoryKey(String category) {
+        return TextNormalizer.normalize(category.trim());
+    }
+}
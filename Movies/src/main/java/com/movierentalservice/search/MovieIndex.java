@@ -0,0 +1,60 @@
+package com.movierentalservice.search;
+
+import java.util.Collection;
+
+import com.movierentalservice.dto.MovieDto;
+
+/**
+ * An in-memory structure derived from the movie catalog. Implementations are fed by
+ * {@link CatalogIndexer}, on startup and after every committed catalog change.
+ */
+public interface MovieIndex {
+    
+    /**
+     * Add a movie to the index, replacing any previous version of it
+     *
+     * @param movie the current state of the movie
+     */
+    void index(MovieDto movie);
+    
+    /**
+     * Add several movies at once. Implementations that lock per movie override this to lock once.
+     *
+     * @param movies the current state of each movie
+     */
+    default void indexAll(Collection<MovieDto> movies) {
+        movies.forEach(this::index);
+    }
+    
+    /**
+     * Remove a movie from the index if present
+     *
+     * @param movieId the id of the movie to remove
+     */
+    void remove(Long movieId);
+    
+    /**
+     * Record a new stock level for a movie. Only indexes that depend on stock override this.
+     *
+     * @param movieId the id of the movie
+     * @param stockQuantity the stock after the change
+     */
+    default void stockChanged(Long movieId, int stockQuantity) {
+    }
+    
+    /**
+     * Record a new average rating for a movie. Only indexes that depend on ratings override this.
+     *
+     * @param movieId the id of the movie
+     * @param averageRating the average after the change, 0 while the movie is unrated
+     * @param ratingCount the number of ratings after the change
+     */
+    default void ratingChanged(Long movieId, double averageRating, int ratingCount) {
+    }
+    
+    /**
+     * Called once the initial catalog load has finished, so bulk-built structures can be compacted
+     */
+    default void loadCompleted() {
+    }
+}
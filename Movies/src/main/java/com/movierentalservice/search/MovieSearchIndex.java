@@ -0,0 +1,217 @@
+package com.movierentalservice.search;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import com.movierentalservice.dto.MovieDto;
+
+/**
+ * In-memory inverted index over title, description, director, actor and category names.
+ * Queries are conjunctive (every term must match, the last one as a prefix so results
+ * follow the user while typing) and ranked with BM25.
+ */
+@Component
+public class MovieSearchIndex implements MovieIndex {
+    
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    
+    // Field boosts, applied as weighted term frequencies
+    private static final int TITLE_WEIGHT = 3;
+    private static final int PEOPLE_WEIGHT = 2;
+    private static final int TEXT_WEIGHT = 1;
+    
+    // Upper bound on the terms a short prefix such as "a" scores; further expansions still match
+    private static final int MAX_SCORED_EXPANSIONS = 64;
+    
+    private final NavigableMap<String, Postings> postings = new TreeMap<>();
+    private final Map<Integer, String[]> movieTerms = new HashMap<>();
+    // Weighted document lengths addressed directly by movie id, read on every scored posting
+    private int[] lengths = new int[1024];
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long totalLength;
+    
+    @Override
+    public void index(MovieDto movie) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        addTerms(frequencies, TITLE_WEIGHT, movie.getTitle());
+        addTerms(frequencies, PEOPLE_WEIGHT, movie.getDirector());
+        addTerms(frequencies, PEOPLE_WEIGHT, movie.getActors());
+        addTerms(frequencies, TEXT_WEIGHT, movie.getCategories());
+        addTerms(frequencies, TEXT_WEIGHT, movie.getDescription());
+        
+        int docId = Math.toIntExact(movie.getId());
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+        
+        lock.writeLock().lock();
+        try {
+            removeInternal(docId);
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, t -> new Postings()).put(docId, frequency));
+            movieTerms.put(docId, frequencies.keySet().toArray(new String[0]));
+            if (docId >= lengths.length) {
+                lengths = Arrays.copyOf(lengths, Math.max(docId + 1, lengths.length * 2));
+            }
+            lengths[docId] = length;
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void indexAll(Collection<MovieDto> movies) {
+        lock.writeLock().lock();
+        try {
+            movies.forEach(this::index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void remove(Long movieId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(Math.toIntExact(movieId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Search the catalog
+     *
+     * @param query free text as typed by the user
+     * @param limit maximum number of ids to return
+     * @param within movies to rank among, or null for the whole catalog
+     * @return matching movie ids, most relevant first
+     */
+    public List<Long> search(String query, int limit, RoaringBitmap within) {
+        lock.readLock().lock();
+        try {
+            ScoredDocs result = match(query);
+            return (within != null ? result.retain(within) : result).top(limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Every movie matching the query, unranked
+     *
+     * @param query free text as typed by the user
+     * @return a private bitmap of matching movie ids
+     */
+    public RoaringBitmap matches(String query) {
+        lock.readLock().lock();
+        try {
+            ScoredDocs result = match(query);
+            RoaringBitmap bitmap = new RoaringBitmap();
+            bitmap.addN(result.docIds, 0, result.size);
+            return bitmap;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private ScoredDocs match(String query) {
+        List<String> terms = TextNormalizer.tokenize(query);
+        if (terms.isEmpty() || movieTerms.isEmpty()) {
+            return ScoredDocs.EMPTY;
+        }
+        float averageLength = (float) totalLength / movieTerms.size();
+        
+        ScoredDocs result = null;
+        for (int i = 0; i < terms.size(); i++) {
+            boolean last = i == terms.size() - 1;
+            ScoredDocs hits = last
+                    ? scorePrefix(terms.get(i), averageLength)
+                    : score(terms.get(i), postings.get(terms.get(i)), averageLength);
+            result = result == null ? hits : result.intersect(hits);
+            if (result.size == 0) {
+                return ScoredDocs.EMPTY;
+            }
+        }
+        return result;
+    }
+    
+    private ScoredDocs scorePrefix(String prefix, float averageLength) {
+        ScoredDocs result = ScoredDocs.EMPTY;
+        RoaringBitmap unscored = new RoaringBitmap();
+        int expansions = 0;
+        for (Map.Entry<String, Postings> entry : postings.tailMap(prefix, true).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            if (expansions++ < MAX_SCORED_EXPANSIONS) {
+                result = result.union(score(entry.getKey(), entry.getValue(), averageLength));
+            } else {
+                Postings termPostings = entry.getValue();
+                for (int i = 0; i < termPostings.size(); i++) {
+                    unscored.add(termPostings.docId(i));
+                }
+            }
+        }
+        // Movies reached only through expansions past the cap still match, ranked by their other terms
+        return unscored.isEmpty() ? result : result.union(ScoredDocs.unscored(unscored));
+    }
+    
+    private ScoredDocs score(String term, Postings termPostings, float averageLength) {
+        if (termPostings == null) {
+            return ScoredDocs.EMPTY;
+        }
+        int documentFrequency = termPostings.size();
+        double idf = Math.log(1 + (movieTerms.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        
+        int[] docIds = new int[documentFrequency];
+        float[] scores = new float[documentFrequency];
+        for (int i = 0; i < documentFrequency; i++) {
+            int docId = termPostings.docId(i);
+            int frequency = termPostings.frequency(i);
+            float lengthNorm = 1 - B + B * lengths[docId] / averageLength;
+            docIds[i] = docId;
+            scores[i] = (float) (idf * frequency * (K1 + 1) / (frequency + K1 * lengthNorm));
+        }
+        return new ScoredDocs(docIds, scores, documentFrequency);
+    }
+    
+    private void removeInternal(int docId) {
+        String[] previousTerms = movieTerms.remove(docId);
+        if (previousTerms == null) {
+            return;
+        }
+        for (String term : previousTerms) {
+            Postings termPostings = postings.get(term);
+            termPostings.remove(docId);
+            if (termPostings.size() == 0) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= lengths[docId];
+        lengths[docId] = 0;
+    }
+    
+    private static void addTerms(Map<String, Integer> frequencies, int weight, String text) {
+        for (String term : TextNormalizer.tokenize(text)) {
+            frequencies.merge(term, weight, Integer::sum);
+        }
+    }
+    
+    private static void addTerms(Map<String, Integer> frequencies, int weight, Collection<String> texts) {
+        if (texts != null) {
+            texts.forEach(text -> addTerms(frequencies, weight, text));
+        }
+    }
+
+}
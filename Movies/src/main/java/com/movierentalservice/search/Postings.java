@@ -0,0 +1,66 @@
+package com.movierentalservice.search;
+
+import java.util.Arrays;
+
+/**
+ * Postings list for one term: movie ids in ascending order with their weighted term
+ * frequencies, kept in parallel primitive arrays.
+ */
+final class Postings {
+    
+    private int[] docIds = new int[4];
+    private int[] frequencies = new int[4];
+    private int size;
+    
+    void put(int docId, int frequency) {
+        // Movies are mostly indexed in id order, so appending is the common case
+        if (size == 0 || docIds[size - 1] < docId) {
+            ensureCapacity();
+            docIds[size] = docId;
+            frequencies[size] = frequency;
+            size++;
+            return;
+        }
+        int position = Arrays.binarySearch(docIds, 0, size, docId);
+        if (position >= 0) {
+            frequencies[position] = frequency;
+            return;
+        }
+        int insertAt = -position - 1;
+        ensureCapacity();
+        System.arraycopy(docIds, insertAt, docIds, insertAt + 1, size - insertAt);
+        System.arraycopy(frequencies, insertAt, frequencies, insertAt + 1, size - insertAt);
+        docIds[insertAt] = docId;
+        frequencies[insertAt] = frequency;
+        size++;
+    }
+    
+    void remove(int docId) {
+        int position = Arrays.binarySearch(docIds, 0, size, docId);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(docIds, position + 1, docIds, position, size - position - 1);
+        System.arraycopy(frequencies, position + 1, frequencies, position, size - position - 1);
+        size--;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    int docId(int index) {
+        return docIds[index];
+    }
+    
+    int frequency(int index) {
+        return frequencies[index];
+    }
+    
+    private void ensureCapacity() {
+        if (size == docIds.length) {
+            docIds = Arrays.copyOf(docIds, size * 2);
+            frequencies = Arrays.copyOf(frequencies, size * 2);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.movierentalservice.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.roaringbitmap.RoaringBitmap;
+
+/**
+ * Movie ids in ascending order with an accumulated relevance score each. Query terms
+ * are combined by merging these lists, which keeps every step linear.
+ */
+final class ScoredDocs {
+    
+    static final ScoredDocs EMPTY = new ScoredDocs(new int[0], new float[0], 0);
+    
+    final int[] docIds;
+    final float[] scores;
+    final int size;
+    
+    ScoredDocs(int[] docIds, float[] scores, int size) {
+        this.docIds = docIds;
+        this.scores = scores;
+        this.size = size;
+    }
+    
+    /**
+     * Every document of the bitmap with a score of zero
+     */
+    static ScoredDocs unscored(RoaringBitmap bitmap) {
+        int[] ids = bitmap.toArray();
+        return new ScoredDocs(ids, new float[ids.length], ids.length);
+    }
+    
+    /**
+     * Keep only documents present in both lists, adding their scores
+     */
+    ScoredDocs intersect(ScoredDocs other) {
+        int capacity = Math.min(size, other.size);
+        int[] ids = new int[capacity];
+        float[] merged = new float[capacity];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (docIds[i] < other.docIds[j]) {
+                i++;
+            } else if (docIds[i] > other.docIds[j]) {
+                j++;
+            } else {
+                ids[count] = docIds[i];
+                merged[count] = scores[i] + other.scores[j];
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return new ScoredDocs(ids, merged, count);
+    }
+    
+    /**
+     * Keep only documents present in the bitmap
+     */
+    ScoredDocs retain(RoaringBitmap bitmap) {
+        int[] ids = new int[size];
+        float[] kept = new float[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (bitmap.contains(docIds[i])) {
+                ids[count] = docIds[i];
+                kept[count++] = scores[i];
+            }
+        }
+        return new ScoredDocs(ids, kept, count);
+    }
+    
+    /**
+     * Keep documents present in either list, adding scores where both match
+     */
+    ScoredDocs union(ScoredDocs other) {
+        int[] ids = new int[size + other.size];
+        float[] merged = new float[size + other.size];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && docIds[i] < other.docIds[j])) {
+                ids[count] = docIds[i];
+                merged[count++] = scores[i++];
+            } else if (i == size || docIds[i] > other.docIds[j]) {
+                ids[count] = other.docIds[j];
+                merged[count++] = other.scores[j++];
+            } else {
+                ids[count] = docIds[i];
+                merged[count++] = scores[i++] + other.scores[j++];
+            }
+        }
+        return new ScoredDocs(ids, merged, count);
+    }
+    
+    /**
+     * Highest scoring ids first, ties broken by ascending id
+     */
+    List<Long> top(int limit) {
+        int count = Math.min(limit, size);
+        if (count == 0) {
+            return List.of();
+        }
+        // Pack score and id into one long so a primitive comparison orders by both;
+        // non-negative floats keep their ordering when compared as raw bits.
+        // A min-heap of the best `count` entries avoids sorting every hit.
+        long[] heap = new long[count];
+        int heapSize = 0;
+        for (int i = 0; i < size; i++) {
+            long packed = ((long) Float.floatToIntBits(scores[i]) << 32) | (Integer.MAX_VALUE - docIds[i]);
+            if (heapSize < count) {
+                heap[heapSize] = packed;
+                siftUp(heap, heapSize++);
+            } else if (packed > heap[0]) {
+                heap[0] = packed;
+                siftDown(heap, count);
+            }
+        }
+        Arrays.sort(heap);
+        List<Long> result = new ArrayList<>(count);
+        for (int i = count - 1; i >= 0; i--) {
+            result.add((long) (Integer.MAX_VALUE - (int) heap[i]));
+        }
+        return result;
+    }
+    
+    private static void siftUp(long[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent] <= heap[index]) {
+                return;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+    
+    private static void siftDown(long[] heap, int size) {
+        int index = 0;
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && heap[left] < heap[smallest]) {
+                smallest = left;
+            }
+            if (right < size && heap[right] < heap[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(heap, smallest, index);
+            index = smallest;
+        }
+    }
+    
+    private static void swap(long[] heap, int i, int j) {
+        long value = heap[i];
+        heap[i] = heap[j];
+        heap[j] = value;
+    }
+}
@@ -1,9 +1,9 @@
 package com.movierentalservice.service;
 
-import java.util.List;
-
 import com.movierentalservice.dto.MovieDto;
 import com.movierentalservice.dto.RentalDto;
+import com.movierentalservice.dto.RentalPage;
+import com.movierentalservice.dto.RentalSearchCriteria;
 
 public interface AdminService {
     
@@ -13,7 +13,7 @@ public interface AdminService {
     
     void deleteMovie(Long movieId);
     
-    List<RentalDto> getAllRentals(String email, String status);
+    RentalPage getRentals(RentalSearchCriteria criteria);
     
     RentalDto returnRental(Long rentalId);
     
@@ -0,0 +1,26 @@
+package com.movierentalservice.service;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs client-retried operations at most once per Idempotency-Key
+ */
+public interface IdempotencyService {
+    
+    String HEADER = "Idempotency-Key";
+    
+    /**
+     * Run the operation unless it already ran for this key, in which case the stored
+     * response is returned instead. The key is claimed in the transaction the operation
+     * joins, before the operation runs, so a concurrent duplicate waits for the first run
+     * and replays its response rather than running the operation again.
+     *
+     * @param scope the operation the key belongs to
+     * @param key the client's key, or null to run the operation without idempotency
+     * @param request what the client sent; a key reused with a different request is rejected
+     * @param responseType the type of the stored response
+     * @param operation the operation to run
+     * @return the response of the first successful run
+     */
+    <T> T execute(String scope, String key, Object request, Class<T> responseType, Supplier<T> operation);
+} 
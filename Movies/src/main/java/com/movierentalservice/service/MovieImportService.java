@@ -0,0 +1,26 @@
+package com.movierentalservice.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.movierentalservice.dto.MovieImportReport;
+
+public interface MovieImportService {
+    
+    enum Format {
+        // Header row naming the columns; actors and categories are separated by '|'
+        CSV,
+        // One MovieDto JSON object per line
+        NDJSON
+    }
+    
+    /**
+     * Import movies from an upload, reading it as a stream. Bad records are skipped and
+     * reported; the rest are written in chunks, each in its own transaction.
+     *
+     * @param input the upload
+     * @param format how the upload is encoded
+     * @return counts, timing and the first errors
+     */
+    MovieImportReport importMovies(InputStream input, Format format) throws IOException;
+} 
@@ -3,6 +3,9 @@ package com.movierentalservice.service;
 import java.util.List;
 
 import com.movierentalservice.dto.MovieDto;
+import com.movierentalservice.dto.MovieFacetsDto;
+import com.movierentalservice.dto.MoviePage;
+import com.movierentalservice.dto.MovieSearchCriteria;
 
 public interface MovieService {
     
@@ -10,7 +13,13 @@ public interface MovieService {
     
     MovieDto getMovieById(Long movieId);
     
-    List<MovieDto> searchMovies(String category, Integer year, Double rating, String search);
+    MoviePage searchMovies(MovieSearchCriteria criteria);
+    
+    MovieFacetsDto getFacets(MovieSearchCriteria criteria);
+    
+    List<String> suggestSpellings(String query);
+    
+    List<String> complete(String prefix, int limit);
     
     List<MovieDto> getAvailableMovies();
 } 
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.movierentalservice.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import com.movierentalservice.entity.Actor;
+import com.movierentalservice.entity.Category;
+
+/**
+ * Turns names typed by an admin into catalog entities, creating the ones that do not exist.
+ * Names match exactly after normalization, so "sci-fi" finds "Sci-Fi" but "Tom" never finds
+ * "Tom Hanks".
+ */
+public interface NameResolver {
+    
+    Set<Actor> resolveActors(Collection<String> names);
+    
+    Set<Category> resolveCategories(Collection<String> names);
+    
+    /**
+     * Same as {@link #resolveActors}, for callers that write the associations themselves
+     *
+     * @return actor ids and stored names keyed by normalized name
+     */
+    Map<String, ResolvedName> resolveActorIds(Collection<String> names);
+    
+    /**
+     * Same as {@link #resolveCategories}, for callers that write the associations themselves
+     *
+     * @return category ids and stored names keyed by normalized name
+     */
+    Map<String, ResolvedName> resolveCategoryIds(Collection<String> names);
+    
+    /**
+     * The id of a catalog row and its name as stored, which is how it should be displayed
+     * even when it was looked up with a different spelling
+     */
+    record ResolvedName(Long id, String name) {
+    }
+} 
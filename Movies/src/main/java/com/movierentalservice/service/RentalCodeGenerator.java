@@ -0,0 +1,10 @@
+package com.movierentalservice.service;
+
+/**
+ * Produces rental codes that are unique by construction, so callers never look them up
+ * before use. The unique constraint on {@code rentals.rental_code} stays as the safety net.
+ */
+public interface RentalCodeGenerator {
+    
+    String nextCode();
+} 
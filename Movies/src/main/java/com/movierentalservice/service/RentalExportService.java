@@ -0,0 +1,28 @@
+package com.movierentalservice.service;
+
+import java.time.LocalDateTime;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+public interface RentalExportService {
+    
+    enum Format {
+        // Header row followed by one row per rental
+        CSV,
+        // One RentalDto JSON object per line
+        NDJSON
+    }
+    
+    /**
+     * Export rentals without loading them all into memory. Filters are checked right away;
+     * the rows are read from the database only while the returned body is being written.
+     *
+     * @param email only rentals of this user, if given
+     * @param status only rentals in this status, if given
+     * @param from only rentals made at or after this time, if given
+     * @param to only rentals made before this time, if given
+     * @param format how the rows are encoded
+     * @return the response body that streams the rows
+     */
+    StreamingResponseBody exportRentals(String email, String status, LocalDateTime from, LocalDateTime to, Format format);
+} 
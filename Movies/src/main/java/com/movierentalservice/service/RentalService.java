@@ -2,12 +2,16 @@ package com.movierentalservice.service;
 
 import java.util.List;
 
+import com.movierentalservice.dto.BatchRentalRequest;
 import com.movierentalservice.dto.RentalDto;
+import com.movierentalservice.entity.Rental;
 
 public interface RentalService {
     
     RentalDto createRental(RentalDto rentalDto);
     
+    List<RentalDto> createRentals(BatchRentalRequest request);
+    
     RentalDto getRentalById(Long rentalId);
     
     RentalDto getRentalByCode(String rentalCode);
@@ -21,4 +25,11 @@ public interface RentalService {
     List<RentalDto> getOrderedRentals();
     
     RentalDto cancelRental(Long rentalId);
+    
+    /**
+     * Move a rental to a new status, adjusting stock when the rental is closed
+     *
+     * @throws RuntimeException if the current status does not allow the transition
+     */
+    RentalDto changeStatus(Long rentalId, Rental.RentalStatus status);
 } 
\ No newline at end of file
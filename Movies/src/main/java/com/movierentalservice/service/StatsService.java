@@ -0,0 +1,24 @@
+package com.movierentalservice.service;
+
+import java.time.LocalDateTime;
+
+import com.movierentalservice.dto.AdminStatsDto;
+
+public interface StatsService {
+    
+    /**
+     * Dashboard figures, read from the rollup tables only
+     *
+     * @param from start of the period, a week before {@code to} if null
+     * @param to end of the period (exclusive), now if null
+     * @param granularity HOUR or DAY, for the rental and rating buckets
+     * @param top how many movies and renters to list
+     * @return the dashboard figures
+     */
+    AdminStatsDto getStats(LocalDateTime from, LocalDateTime to, String granularity, int top);
+    
+    /**
+     * Recompute the rollup tables from the rentals and ratings tables
+     */
+    void rebuild();
+} 
@@ -0,0 +1,29 @@
+package com.movierentalservice.service;
+
+import java.util.List;
+
+import com.movierentalservice.dto.WaitlistEntryDto;
+
+public interface WaitlistService {
+    
+    WaitlistEntryDto joinWaitlist(Long movieId, Long userId);
+    
+    void leaveWaitlist(Long movieId, Long userId);
+    
+    List<WaitlistEntryDto> getWaitlist(Long movieId);
+    
+    /**
+     * Turns copies in stock into ORDERED rentals for waiting users, oldest entry first.
+     * Must run in the transaction that put the copies back.
+     *
+     * @return the number of copies handed over
+     */
+    int assignAvailableCopies(Long movieId);
+    
+    /**
+     * Puts copies back into stock, then hands them to waiting users as
+     * {@link #assignAvailableCopies} does, and publishes the resulting stock change.
+     * Must run in the transaction that closed the rentals holding the copies.
+     */
+    void returnCopies(Long movieId, int copies);
+} 
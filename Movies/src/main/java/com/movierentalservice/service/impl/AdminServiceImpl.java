@@ -1,28 +1,35 @@
 package com.movierentalservice.service.impl;
 
-import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.movierentalservice.dto.MovieDto;
 import com.movierentalservice.dto.RentalDto;
+import com.movierentalservice.dto.RentalPage;
+import com.movierentalservice.dto.RentalSearchCriteria;
 import com.movierentalservice.entity.Actor;
 import com.movierentalservice.entity.Category;
 import com.movierentalservice.entity.Movie;
 import com.movierentalservice.entity.Rental;
+import com.movierentalservice.event.MovieCatalogChangedEvent;
+import com.movierentalservice.event.MovieStockChangedEvent;
 import com.movierentalservice.exception.ResourceNotFoundException;
-import com.movierentalservice.repository.ActorRepository;
-import com.movierentalservice.repository.CategoryRepository;
 import com.movierentalservice.repository.MovieRepository;
 import com.movierentalservice.repository.RentalRepository;
-import com.movierentalservice.repository.UserRepository;
+import com.movierentalservice.repository.WaitlistEntryRepository;
 import com.movierentalservice.service.AdminService;
 import com.movierentalservice.service.ImageService;
+import com.movierentalservice.service.NameResolver;
+import com.movierentalservice.service.RentalService;
+import com.movierentalservice.service.WaitlistService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -31,11 +38,16 @@ import lombok.RequiredArgsConstructor;
 public class AdminServiceImpl implements AdminService {
     
     private final MovieRepository movieRepository;
-    private final ActorRepository actorRepository;
-    private final CategoryRepository categoryRepository;
+    private final NameResolver nameResolver;
     private final RentalRepository rentalRepository;
-    private final UserRepository userRepository;
+    private final WaitlistEntryRepository waitlistEntryRepository;
     private final ImageService imageService;
+    private final WaitlistService waitlistService;
+    private final RentalService rentalService;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Value("${movie.rental.max-page-size:100}")
+    private int maxPageSize;
     
     @Override
     @Transactional
@@ -55,37 +67,20 @@ public class AdminServiceImpl implements AdminService {
         
         // Add actors
         if (movieDto.getActors() != null) {
-            Set<Actor> actors = new HashSet<>();
-            for (String actorName : movieDto.getActors()) {
-                Actor actor = actorRepository.findByNameContainingIgnoreCase(actorName)
-                        .stream().findFirst().orElseGet(() -> {
-                            Actor newActor = new Actor();
-                            newActor.setName(actorName);
-                            return actorRepository.save(newActor);
-                        });
-                actors.add(actor);
-            }
-            movie.setActors(actors);
+            movie.setActors(nameResolver.resolveActors(movieDto.getActors()));
         }
         
         // Add categories
         if (movieDto.getCategories() != null) {
-            Set<Category> categories = new HashSet<>();
-            for (String categoryName : movieDto.getCategories()) {
-                Category category = categoryRepository.findByNameContainingIgnoreCase(categoryName)
-                        .stream().findFirst().orElseGet(() -> {
-                            Category newCategory = new Category();
-                            newCategory.setName(categoryName);
-                            return categoryRepository.save(newCategory);
-                        });
-                categories.add(category);
-            }
-            movie.setCategories(categories);
+            movie.setCategories(nameResolver.resolveCategories(movieDto.getCategories()));
         }
         
         Movie savedMovie = movieRepository.save(movie);
         
-        return mapToDto(savedMovie);
+        MovieDto savedMovieDto = mapToDto(savedMovie);
+        eventPublisher.publishEvent(MovieCatalogChangedEvent.saved(savedMovieDto, savedMovie.getVersion()));
+        
+        return savedMovieDto;
     }
     
     @Override
@@ -108,35 +103,16 @@ public class AdminServiceImpl implements AdminService {
         
         // Update actors
         if (movieDto.getActors() != null) {
-            Set<Actor> actors = new HashSet<>();
-            for (String actorName : movieDto.getActors()) {
-                Actor actor = actorRepository.findByNameContainingIgnoreCase(actorName)
-                        .stream().findFirst().orElseGet(() -> {
-                            Actor newActor = new Actor();
-                            newActor.setName(actorName);
-                            return actorRepository.save(newActor);
-                        });
-                actors.add(actor);
-            }
-            movie.setActors(actors);
+            movie.setActors(nameResolver.resolveActors(movieDto.getActors()));
         }
         
         // Update categories
         if (movieDto.getCategories() != null) {
-            Set<Category> categories = new HashSet<>();
-            for (String categoryName : movieDto.getCategories()) {
-                Category category = categoryRepository.findByNameContainingIgnoreCase(categoryName)
-                        .stream().findFirst().orElseGet(() -> {
-                            Category newCategory = new Category();
-                            newCategory.setName(categoryName);
-                            return categoryRepository.save(newCategory);
-                        });
-                categories.add(category);
-            }
-            movie.setCategories(categories);
+            movie.setCategories(nameResolver.resolveCategories(movieDto.getCategories()));
         }
         
-        Movie updatedMovie = movieRepository.save(movie);
+        // Flush so the version carried by the event is the one this update wrote
+        Movie updatedMovie = movieRepository.saveAndFlush(movie);
         
         // If image was changed, delete the old one
         if (oldImageId != null && !oldImageId.equals(movieDto.getImageId())) {
@@ -148,7 +124,17 @@ public class AdminServiceImpl implements AdminService {
             }
         }
         
-        return mapToDto(updatedMovie);
+        MovieDto updatedMovieDto = mapToDto(updatedMovie);
+        eventPublisher.publishEvent(MovieCatalogChangedEvent.saved(updatedMovieDto, updatedMovie.getVersion()));
+        
+        // A restock goes to waiting users before anyone else can rent it
+        int stock = updatedMovie.getStockQuantity();
+        int assigned = waitlistService.assignAvailableCopies(movieId);
+        if (assigned > 0) {
+            eventPublisher.publishEvent(new MovieStockChangedEvent(movieId, stock, stock - assigned));
+        }
+        
+        return updatedMovieDto;
     }
     
     @Override
@@ -175,80 +161,51 @@ public class AdminServiceImpl implements AdminService {
             }
         }
         
+        waitlistEntryRepository.deleteByMovieId(movieId);
         movieRepository.delete(movie);
+        
+        eventPublisher.publishEvent(MovieCatalogChangedEvent.deleted(movieId));
     }
     
     @Override
-    public List<RentalDto> getAllRentals(String email, String status) {
-        List<Rental> rentals;
-        
-        if (email != null && status != null) {
-            // Find user by email
-            Long userId = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new ResourceNotFoundException("User", "email", email))
-                    .getId();
-            
-            Rental.RentalStatus rentalStatus = Rental.RentalStatus.valueOf(status.toUpperCase());
-            rentals = rentalRepository.findByUserIdAndStatusOrderByRentalDateDesc(userId, rentalStatus);
-        } else if (email != null) {
-            // Find user by email
-            Long userId = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new ResourceNotFoundException("User", "email", email))
-                    .getId();
-            
-            rentals = rentalRepository.findByUserIdOrderByRentalDateDesc(userId);
-        } else if (status != null) {
-            Rental.RentalStatus rentalStatus = Rental.RentalStatus.valueOf(status.toUpperCase());
-            rentals = rentalRepository.findByStatusOrderByRentalDateDesc(rentalStatus);
-        } else {
-            rentals = rentalRepository.findAllByOrderByRentalDateDesc();
+    public RentalPage getRentals(RentalSearchCriteria criteria) {
+        Rental.RentalStatus status = criteria.getStatus() == null ? null
+                : Rental.RentalStatus.valueOf(criteria.getStatus().toUpperCase());
+        RentalCursor cursor = criteria.getCursor() == null ? null : RentalCursor.decode(criteria.getCursor());
+        
+        // Fetch one extra row to learn whether another page follows, without a count query
+        Integer limit = criteria.getLimit() == null ? null : pageSize(criteria.getLimit());
+        List<RentalDto> rentals = rentalRepository.search(
+                criteria.getEmail(),
+                status,
+                criteria.getMovieId(),
+                criteria.getRentalCode(),
+                criteria.getFrom(),
+                criteria.getTo(),
+                cursor == null ? null : cursor.getRentalDate(),
+                cursor == null ? null : cursor.getId(),
+                limit == null ? Pageable.unpaged() : PageRequest.of(0, limit + 1));
+        
+        String nextCursor = null;
+        if (limit != null && rentals.size() > limit) {
+            rentals = rentals.subList(0, limit);
+            RentalDto last = rentals.get(limit - 1);
+            nextCursor = RentalCursor.encode(last.getRentalDate(), last.getId());
         }
         
-        return rentals.stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return new RentalPage(rentals, nextCursor);
     }
     
     @Override
     @Transactional
     public RentalDto returnRental(Long rentalId) {
-        Rental rental = rentalRepository.findById(rentalId)
-                .orElseThrow(() -> new ResourceNotFoundException("Rental", "id", rentalId));
-        
-        if (rental.getStatus() != Rental.RentalStatus.TAKEN) {
-            throw new RuntimeException("Rental is not active");
-        }
-        
-        // Update rental status
-        rental.setStatus(Rental.RentalStatus.RETURNED);
-        rental.setReturnDate(LocalDateTime.now());
-        
-        // Increase movie stock
-        Movie movie = rental.getMovie();
-        movie.setStockQuantity(movie.getStockQuantity() + 1);
-        movieRepository.save(movie);
-        
-        Rental updatedRental = rentalRepository.save(rental);
-        
-        return mapToDto(updatedRental);
+        return rentalService.changeStatus(rentalId, Rental.RentalStatus.RETURNED);
     }
     
     @Override
     @Transactional
     public RentalDto markRentalAsTaken(Long rentalId) {
-        Rental rental = rentalRepository.findById(rentalId)
-                .orElseThrow(() -> new ResourceNotFoundException("Rental", "id", rentalId));
-        
-        if (rental.getStatus() != Rental.RentalStatus.ORDERED) {
-            throw new RuntimeException("Rental is not in ORDERED status");
-        }
-        
-        // Update rental status
-        rental.setStatus(Rental.RentalStatus.TAKEN);
-        
-        Rental updatedRental = rentalRepository.save(rental);
-        
-        return mapToDto(updatedRental);
+        return rentalService.changeStatus(rentalId, Rental.RentalStatus.TAKEN);
     }
     
     private MovieDto mapToDto(Movie movie) {
@@ -267,22 +224,16 @@ public class AdminServiceImpl implements AdminService {
                         .map(Category::getName)
                         .collect(Collectors.toList()))
                 .averageRating(movie.getAverageRating())
+                .ratingCount(movie.getRatingCount())
                 .stockQuantity(movie.getStockQuantity())
                 .available(movie.isAvailable())
                 .build();
     }
     
-    private RentalDto mapToDto(Rental rental) {
-        return RentalDto.builder()
-                .id(rental.getId())
-                .userId(rental.getUser().getId())
-                .userFullName(rental.getUser().getFullName())
-                .movieId(rental.getMovie().getId())
-                .movieTitle(rental.getMovie().getTitle())
-                .rentalCode(rental.getRentalCode())
-                .rentalDate(rental.getRentalDate())
-                .returnDate(rental.getReturnDate())
-                .status(rental.getStatus().name())
-                .build();
+    private int pageSize(int requested) {
+        if (requested < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return Math.min(requested, maxPageSize);
     }
 } 
\ No newline at end of file
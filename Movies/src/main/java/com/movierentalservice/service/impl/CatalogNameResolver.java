@@ -0,0 +1,177 @@
+package com.movierentalservice.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.movierentalservice.entity.Actor;
+import com.movierentalservice.entity.Category;
+import com.movierentalservice.repository.ActorRepository;
+import com.movierentalservice.repository.CategoryRepository;
+import com.movierentalservice.search.TextNormalizer;
+import com.movierentalservice.service.NameResolver;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resolves a whole list of names with one {@code normalized_name IN (...)} query and inserts
+ * the missing ones in a single batch. Categories are a small, hot set, so their ids are kept
+ * in memory and known names are attached by reference without a lookup.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogNameResolver implements NameResolver {
+    
+    private final ActorRepository actorRepository;
+    private final CategoryRepository categoryRepository;
+    
+    // Keyed by normalized name, only for rows read back from the database, so never for a rolled back insert
+    private final Map<String, ResolvedName> knownCategories = new ConcurrentHashMap<>();
+    
+    @Override
+    @Transactional
+    public Set<Actor> resolveActors(Collection<String> names) {
+        Map<String, String> byKey = normalize(names);
+        if (byKey.isEmpty()) {
+            return new HashSet<>();
+        }
+        List<Actor> actors = new ArrayList<>(actorRepository.findByNormalizedNameIn(byKey.keySet()));
+        actors.forEach(actor -> byKey.remove(actor.getNormalizedName()));
+        
+        if (!byKey.isEmpty()) {
+            List<Actor> created = new ArrayList<>();
+            byKey.values().forEach(name -> created.add(Actor.builder().name(name).build()));
+            actors.addAll(actorRepository.saveAll(created));
+        }
+        return new HashSet<>(actors);
+    }
+    
+    @Override
+    @Transactional
+    public Set<Category> resolveCategories(Collection<String> names) {
+        Map<String, String> byKey = normalize(names);
+        
+        // All references are created before any is hashed, so loading them is one batch
+        List<Category> categories = new ArrayList<>();
+        byKey.keySet().removeIf(key -> {
+            ResolvedName known = knownCategories.get(key);
+            if (known != null) {
+                categories.add(categoryRepository.getReferenceById(known.id()));
+            }
+            return known != null;
+        });
+        
+        if (!byKey.isEmpty()) {
+            for (Category category : categoryRepository.findByNormalizedNameIn(byKey.keySet())) {
+                knownCategories.put(category.getNormalizedName(), new ResolvedName(category.getId(), category.getName()));
+                byKey.remove(category.getNormalizedName());
+                categories.add(category);
+            }
+        }
+        if (!byKey.isEmpty()) {
+            List<Category> created = new ArrayList<>();
+            byKey.values().forEach(name -> created.add(Category.builder().name(name).build()));
+            categories.addAll(categoryRepository.saveAll(created));
+        }
+        return new HashSet<>(categories);
+    }
+    
+    @Override
+    @Transactional
+    public Map<String, ResolvedName> resolveActorIds(Collection<String> names) {
+        Map<String, ResolvedName> resolved = new HashMap<>();
+        resolveActors(names).forEach(actor ->
+                resolved.put(actor.getNormalizedName(), new ResolvedName(actor.getId(), actor.getName())));
+        return resolved;
+    }
+    
+    @Override
+    @Transactional
+    public Map<String, ResolvedName> resolveCategoryIds(Collection<String> names) {
+        // Served from memory where possible; references would have to be loaded to read their names
+        Map<String, ResolvedName> resolved = new HashMap<>();
+        List<String> unknown = new ArrayList<>();
+        normalize(names).forEach((key, name) -> {
+            ResolvedName known = knownCategories.get(key);
+            if (known != null) {
+                resolved.put(key, known);
+            } else {
+                unknown.add(name);
+            }
+        });
+        if (!unknown.isEmpty()) {
+            resolveCategories(unknown).forEach(category -> resolved.put(category.getNormalizedName(),
+                    new ResolvedName(category.getId(), category.getName())));
+        }
+        return resolved;
+    }
+    
+    /**
+     * Fills in the normalized name of rows created before it existed. When several rows
+     * normalize to the same name, the oldest one keeps it and the rest are logged.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillNormalizedNames() {
+        backfill(actorRepository.findByNormalizedNameIsNull(), Actor::getName, Actor::getId, Actor::setNormalizedName,
+                keys -> actorRepository.findByNormalizedNameIn(keys).stream().map(Actor::getNormalizedName).collect(Collectors.toList()), "actor");
+        backfill(categoryRepository.findByNormalizedNameIsNull(), Category::getName, Category::getId, Category::setNormalizedName,
+                keys -> categoryRepository.findByNormalizedNameIn(keys).stream().map(Category::getNormalizedName).collect(Collectors.toList()), "category");
+    }
+    
+    private <E> void backfill(List<E> rows,
+                              Function<E, String> name,
+                              Function<E, Long> id,
+                              BiConsumer<E, String> setNormalizedName,
+                              Function<Set<String>, List<String>> existingKeys,
+                              String kind) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        rows.sort((a, b) -> Long.compare(id.apply(a), id.apply(b)));
+        Set<String> keys = new HashSet<>();
+        rows.forEach(row -> keys.add(TextNormalizer.normalizeName(name.apply(row))));
+        Set<String> taken = new HashSet<>(existingKeys.apply(keys));
+        int filled = 0;
+        for (E row : rows) {
+            String key = TextNormalizer.normalizeName(name.apply(row));
+            if (!key.isEmpty() && taken.add(key)) {
+                setNormalizedName.accept(row, key);
+                filled++;
+            } else {
+                log.warn("Not backfilling {} {} '{}': its normalized name is empty or already used", kind, id.apply(row), name.apply(row));
+            }
+        }
+        log.info("Backfilled normalized names for {} of {} {} rows", filled, rows.size(), kind);
+    }
+    
+    /**
+     * Normalized name to the name as first written, dropping blanks and duplicates
+     */
+    private static Map<String, String> normalize(Collection<String> names) {
+        Map<String, String> byKey = new LinkedHashMap<>();
+        for (String name : names) {
+            String key = TextNormalizer.normalizeName(name);
+            if (!key.isEmpty()) {
+                byKey.putIfAbsent(key, name.trim());
+            }
+        }
+        return byKey;
+    }
+} 
@@ -1,10 +1,12 @@
 package com.movierentalservice.service.impl;
 
+import com.movierentalservice.config.CacheConfig;
 import com.movierentalservice.dto.CategoryDto;
 import com.movierentalservice.entity.Category;
 import com.movierentalservice.repository.CategoryRepository;
 import com.movierentalservice.service.CategoryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -17,6 +19,7 @@ public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, key = "'" + CacheConfig.ALL_CATEGORIES_KEY + "'")
     public List<CategoryDto> getAllCategories() {
         List<Category> categories = categoryRepository.findAll();
         return categories.stream()
@@ -0,0 +1,150 @@
+package com.movierentalservice.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.movierentalservice.entity.IdempotencyRecord;
+import com.movierentalservice.repository.IdempotencyRecordRepository;
+import com.movierentalservice.service.IdempotencyService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stored responses live in the {@code idempotency_keys} table so retries survive a restart,
+ * with a size-bounded in-memory cache in front so most retries never reach the database.
+ * Both forget a key after {@code movie.idempotency.ttl-hours}.
+ */
+@Service
+@Slf4j
+public class IdempotencyServiceImpl implements IdempotencyService {
+    
+    private static final int MAX_KEY_LENGTH = 255;
+    
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Cache<String, IdempotencyRecord> recentRecords;
+    
+    public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository,
+                                  ObjectMapper objectMapper,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${movie.idempotency.ttl-hours:24}") int ttlHours,
+                                  @Value("${movie.idempotency.cache-size:10000}") int cacheSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.recentRecords = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+    
+    @Override
+    public <T> T execute(String scope, String key, Object request, Class<T> responseType, Supplier<T> operation) {
+        if (key == null) {
+            return operation.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        
+        String id = scope + ":" + key;
+        String requestHash = hash(toJson(request));
+        Optional<IdempotencyRecord> stored = find(id);
+        if (stored.isPresent()) {
+            return replay(stored.get(), requestHash, responseType);
+        }
+        
+        try {
+            IdempotencyRecord record = transactionTemplate.execute(status -> {
+                // Claim the key before running the operation: a concurrent request with the same key
+                // waits on this row and fails on the primary key once this one commits, so it never
+                // runs the operation itself and fails on its outcome, such as the last copy being gone
+                LocalDateTime now = LocalDateTime.now();
+                idempotencyRecordRepository.insert(id, requestHash, "", now);
+                String responseBody = toJson(operation.get());
+                idempotencyRecordRepository.updateResponseBody(id, responseBody);
+                return new IdempotencyRecord(id, requestHash, responseBody, now);
+            });
+            recentRecords.put(id, record);
+            return fromJson(record.getResponseBody(), responseType);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request with the same key committed first and this run was rolled back
+            IdempotencyRecord winner = find(id).orElseThrow(() -> e);
+            return replay(winner, requestHash, responseType);
+        }
+    }
+    
+    @Scheduled(cron = "${movie.idempotency.purge-cron:0 15 * * * *}")
+    @Transactional
+    public void purgeExpired() {
+        int purged = idempotencyRecordRepository.deleteByCreatedAtBefore(LocalDateTime.now().minus(ttl));
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+    
+    private Optional<IdempotencyRecord> find(String id) {
+        IdempotencyRecord cached = recentRecords.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        // Rows outlive the TTL until the next purge, so expiry is checked here as well
+        Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findById(id)
+                .filter(record -> record.getCreatedAt().isAfter(LocalDateTime.now().minus(ttl)));
+        stored.ifPresent(record -> recentRecords.put(id, record));
+        return stored;
+    }
+    
+    private <T> T replay(IdempotencyRecord record, String requestHash, Class<T> responseType) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new IllegalArgumentException(HEADER + " was already used for a different request");
+        }
+        log.debug("Replaying stored response for idempotency key {}", record.getId());
+        return fromJson(record.getResponseBody(), responseType);
+    }
+    
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to convert to JSON", e);
+        }
+    }
+    
+    private <T> T fromJson(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read stored response", e);
+        }
+    }
+    
+    private static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+} 
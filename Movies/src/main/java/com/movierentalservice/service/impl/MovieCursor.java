@@ -0,0 +1,74 @@
+package com.movierentalservice.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.movierentalservice.repository.MovieSort;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Opaque position in a movie listing. Sorted listings resume after the last
+ * {@code (sort key, id)} pair; relevance-ranked listings resume at an offset into the
+ * ranked hits, which are held in memory.
+ */
+@Getter
+@RequiredArgsConstructor
+final class MovieCursor {
+    
+    private static final String RELEVANCE = "relevance";
+    private static final String NULL_KEY = "~";
+    
+    private final Comparable<?> key;
+    private final long id;
+    
+    static String encode(MovieSort sort, Comparable<?> key, Long id) {
+        return encode(sortToken(sort) + ":" + id + ":" + (key == null ? NULL_KEY : "=" + key));
+    }
+    
+    static String encodeOffset(int offset) {
+        return encode(RELEVANCE + ":" + offset);
+    }
+    
+    static MovieCursor decode(String cursor, MovieSort sort) {
+        String[] parts = decode(cursor).split(":", 3);
+        if (parts.length != 3 || !parts[0].equals(sortToken(sort))) {
+            throw new IllegalArgumentException("Cursor does not belong to this listing");
+        }
+        try {
+            Comparable<?> key = parts[2].equals(NULL_KEY) ? null : sort.getField().getParser().apply(parts[2].substring(1));
+            return new MovieCursor(key, Long.parseLong(parts[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+    
+    static int decodeOffset(String cursor) {
+        String[] parts = decode(cursor).split(":", 2);
+        if (parts.length != 2 || !parts[0].equals(RELEVANCE)) {
+            throw new IllegalArgumentException("Cursor does not belong to this listing");
+        }
+        try {
+            return Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+    
+    private static String sortToken(MovieSort sort) {
+        return (sort.isDescending() ? "-" : "") + sort.getField().getAttribute();
+    }
+    
+    private static String encode(String token) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
@@ -0,0 +1,483 @@
+package com.movierentalservice.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movierentalservice.config.SequenceAligner;
+import com.movierentalservice.dto.MovieDto;
+import com.movierentalservice.dto.MovieImportReport;
+import com.movierentalservice.event.MoviesImportedEvent;
+import com.movierentalservice.search.TextNormalizer;
+import com.movierentalservice.service.MovieImportService;
+import com.movierentalservice.service.NameResolver;
+import com.movierentalservice.service.NameResolver.ResolvedName;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streams an upload through three stages: the request thread splits it into records,
+ * a pool of parser threads turns chunks of records into movies, and the request thread
+ * writes each parsed chunk in one transaction as plain JDBC batches. Only a few chunks are
+ * in flight at a time, so memory stays flat however large the upload is. Actor and category
+ * names are resolved once per upload and remembered for the rest of it.
+ */
+@Service
+@Slf4j
+public class MovieImportServiceImpl implements MovieImportService {
+    
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_NAMES_PER_QUERY = 1000;
+    private static final String LIST_SEPARATOR = "\\|";
+    
+    private static final String INSERT_MOVIE = "INSERT INTO movies (id, title, description, release_year, director, " +
+            "duration, image_id, stock_quantity, rating_sum, rating_count, average_rating, version, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, 0, 0, 0, ?, ?)";
+    private static final String INSERT_MOVIE_ACTOR = "INSERT INTO movie_actor (movie_id, actor_id) VALUES (?, ?)";
+    private static final String INSERT_MOVIE_CATEGORY = "INSERT INTO movie_category (movie_id, category_id) VALUES (?, ?)";
+    
+    private final NameResolver nameResolver;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final int parserThreads;
+    private final ExecutorService parserPool;
+    
+    public MovieImportServiceImpl(NameResolver nameResolver,
+                                  JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  EntityManager entityManager,
+                                  ObjectMapper objectMapper,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${movie.import.chunk-size:1000}") int chunkSize,
+                                  @Value("${movie.import.parser-threads:4}") int parserThreads) {
+        this.nameResolver = nameResolver;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.parserThreads = parserThreads;
+        this.parserPool = Executors.newFixedThreadPool(parserThreads);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        parserPool.shutdownNow();
+    }
+    
+    @Override
+    public MovieImportReport importMovies(InputStream input, Format format) throws IOException {
+        long start = System.currentTimeMillis();
+        ImportRun run = new ImportRun();
+        Deque<Future<List<ParsedRecord>>> inFlight = new ArrayDeque<>();
+        
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            RecordReader records = new RecordReader(reader, format == Format.CSV);
+            Map<String, Integer> columns = format == Format.CSV ? readHeader(records) : null;
+            
+            List<RawRecord> chunk;
+            while (!(chunk = records.next(chunkSize)).isEmpty()) {
+                List<RawRecord> toParse = chunk;
+                run.records += toParse.size();
+                inFlight.add(parserPool.submit(() -> parse(toParse, columns)));
+                // Parsers run ahead of the writer by at most one chunk each
+                if (inFlight.size() > parserThreads) {
+                    write(run, await(inFlight.poll()));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                write(run, await(inFlight.poll()));
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+        
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Imported {} of {} movies from {} in {} ms", run.imported, run.records, format, elapsed);
+        return MovieImportReport.builder()
+                .format(format.name())
+                .records(run.records)
+                .imported(run.imported)
+                .failed(run.failed)
+                .distinctActors(run.actors.size())
+                .distinctCategories(run.categories.size())
+                .errors(run.errors)
+                .elapsedMillis(elapsed)
+                .moviesPerSecond(elapsed > 0 ? run.imported * 1000 / elapsed : run.imported)
+                .build();
+    }
+    
+    private Map<String, Integer> readHeader(RecordReader records) throws IOException {
+        List<RawRecord> header = records.next(1);
+        if (header.isEmpty()) {
+            throw new IllegalArgumentException("CSV upload is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsv(header.get(0).text);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("title")) {
+            throw new IllegalArgumentException("CSV header must have a title column");
+        }
+        return columns;
+    }
+    
+    private List<ParsedRecord> parse(List<RawRecord> records, Map<String, Integer> columns) {
+        List<ParsedRecord> parsed = new ArrayList<>(records.size());
+        for (RawRecord record : records) {
+            try {
+                MovieDto movie = columns != null ? fromCsv(splitCsv(record.text), columns) : fromJson(record.text);
+                validate(movie);
+                parsed.add(new ParsedRecord(record.line, movie, null));
+            } catch (IllegalArgumentException | JsonProcessingException e) {
+                parsed.add(new ParsedRecord(record.line, null, e.getMessage()));
+            }
+        }
+        return parsed;
+    }
+    
+    private MovieDto fromJson(String text) throws JsonProcessingException {
+        return objectMapper.readValue(text, MovieDto.class);
+    }
+    
+    private MovieDto fromCsv(List<String> fields, Map<String, Integer> columns) {
+        return MovieDto.builder()
+                .title(field(fields, columns, "title"))
+                .description(field(fields, columns, "description"))
+                .releaseYear(integer(fields, columns, "releaseyear"))
+                .director(field(fields, columns, "director"))
+                .duration(integer(fields, columns, "duration"))
+                .stockQuantity(integer(fields, columns, "stockquantity"))
+                .imageId(field(fields, columns, "imageid"))
+                .actors(list(fields, columns, "actors"))
+                .categories(list(fields, columns, "categories"))
+                .build();
+    }
+    
+    private static void validate(MovieDto movie) {
+        if (movie.getTitle() == null || movie.getTitle().isBlank()) {
+            throw new IllegalArgumentException("title is required");
+        }
+        if (movie.getStockQuantity() == null) {
+            movie.setStockQuantity(0);
+        } else if (movie.getStockQuantity() < 0) {
+            throw new IllegalArgumentException("stockQuantity cannot be negative");
+        }
+    }
+    
+    private void write(ImportRun run, List<ParsedRecord> parsed) {
+        List<ParsedRecord> valid = new ArrayList<>(parsed.size());
+        for (ParsedRecord record : parsed) {
+            if (record.error != null) {
+                run.fail(record.line, record.error, 1);
+            } else {
+                valid.add(record);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        
+        Set<String> newActorKeys = new HashSet<>();
+        Set<String> newCategoryKeys = new HashSet<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeChunk(run, valid, newActorKeys, newCategoryKeys));
+            run.imported += valid.size();
+            log.debug("Imported {} of {} records read so far", run.imported, run.records);
+        } catch (RuntimeException e) {
+            // Names created by the rolled back chunk no longer exist
+            run.actors.keySet().removeAll(newActorKeys);
+            run.categories.keySet().removeAll(newCategoryKeys);
+            run.fail(valid.get(0).line, "chunk of " + valid.size() + " records starting here was not imported: "
+                    + e.getMessage(), valid.size());
+        }
+    }
+    
+    private void writeChunk(ImportRun run, List<ParsedRecord> records, Set<String> newActorKeys, Set<String> newCategoryKeys) {
+        resolveNames(records, movie -> movie.getActors(), run.actors, newActorKeys, nameResolver::resolveActorIds);
+        resolveNames(records, movie -> movie.getCategories(), run.categories, newCategoryKeys, nameResolver::resolveCategoryIds);
+        // Names inserted through JPA must reach the database before the join rows below
+        entityManager.flush();
+        entityManager.clear();
+        
+        List<Long> ids = nextMovieIds(records.size());
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> movies = new ArrayList<>(records.size());
+        List<Object[]> movieActors = new ArrayList<>();
+        List<Object[]> movieCategories = new ArrayList<>();
+        for (int i = 0; i < records.size(); i++) {
+            MovieDto movie = records.get(i).movie;
+            Long id = ids.get(i);
+            movie.setId(id);
+            movies.add(new Object[] {id, movie.getTitle(), movie.getDescription(), movie.getReleaseYear(),
+                    movie.getDirector(), movie.getDuration(), movie.getImageId(), movie.getStockQuantity(), now, now});
+            // From here on the movie carries the names as stored, not as spelled in the file
+            List<String> actorNames = new ArrayList<>();
+            for (ResolvedName actor : resolved(movie.getActors(), run.actors)) {
+                movieActors.add(new Object[] {id, actor.id()});
+                actorNames.add(actor.name());
+            }
+            List<String> categoryNames = new ArrayList<>();
+            for (ResolvedName category : resolved(movie.getCategories(), run.categories)) {
+                movieCategories.add(new Object[] {id, category.id()});
+                categoryNames.add(category.name());
+            }
+            movie.setActors(actorNames);
+            movie.setCategories(categoryNames);
+        }
+        jdbcTemplate.batchUpdate(INSERT_MOVIE, movies);
+        jdbcTemplate.batchUpdate(INSERT_MOVIE_ACTOR, movieActors);
+        jdbcTemplate.batchUpdate(INSERT_MOVIE_CATEGORY, movieCategories);
+        
+        // Indexes and caches pick the whole chunk up at once when it commits
+        List<MovieDto> imported = new ArrayList<>(records.size());
+        for (ParsedRecord record : records) {
+            MovieDto movie = record.movie;
+            movie.setAverageRating(0.0);
+            movie.setRatingCount(0);
+            movie.setAvailable(movie.getStockQuantity() > 0);
+            imported.add(movie);
+        }
+        eventPublisher.publishEvent(new MoviesImportedEvent(imported));
+    }
+    
+    private void resolveNames(List<ParsedRecord> records,
+                              Function<MovieDto, List<String>> names,
+                              Map<String, ResolvedName> known,
+                              Set<String> newKeys,
+                              Function<List<String>, Map<String, ResolvedName>> resolver) {
+        Map<String, String> unknown = new LinkedHashMap<>();
+        for (ParsedRecord record : records) {
+            List<String> movieNames = names.apply(record.movie);
+            if (movieNames == null) {
+                continue;
+            }
+            for (String name : movieNames) {
+                String key = TextNormalizer.normalizeName(name);
+                if (!key.isEmpty() && !known.containsKey(key)) {
+                    unknown.putIfAbsent(key, name);
+                }
+            }
+        }
+        List<String> pending = new ArrayList<>(unknown.values());
+        for (int from = 0; from < pending.size(); from += MAX_NAMES_PER_QUERY) {
+            Map<String, ResolvedName> resolved = resolver.apply(pending.subList(from, Math.min(from + MAX_NAMES_PER_QUERY, pending.size())));
+            known.putAll(resolved);
+            newKeys.addAll(resolved.keySet());
+        }
+    }
+    
+    private static Set<ResolvedName> resolved(List<String> names, Map<String, ResolvedName> known) {
+        Set<ResolvedName> resolved = new LinkedHashSet<>();
+        if (names != null) {
+            for (String name : names) {
+                ResolvedName match = known.get(TextNormalizer.normalizeName(name));
+                if (match != null) {
+                    resolved.add(match);
+                }
+            }
+        }
+        return resolved;
+    }
+    
+    /**
+     * Reserves ids from movies_seq the way Hibernate's pooled optimizer does, so imported rows
+     * and rows saved through JPA never collide: each nextval hands out the block ending at it
+     */
+    private List<Long> nextMovieIds(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            long high = jdbcTemplate.queryForObject("SELECT nextval('movies_seq')", Long.class);
+            for (long id = Math.max(1, high - SequenceAligner.ALLOCATION_SIZE + 1); id <= high && ids.size() < count; id++) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+    
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to parse import records", e.getCause());
+        }
+    }
+    
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+    
+    private static Integer integer(List<String> fields, Map<String, Integer> columns, String column) {
+        String value = field(fields, columns, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: " + value);
+        }
+    }
+    
+    private static List<String> list(List<String> fields, Map<String, Integer> columns, String column) {
+        String value = field(fields, columns, column);
+        if (value == null) {
+            return null;
+        }
+        return Arrays.stream(value.split(LIST_SEPARATOR))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Splits one CSV record into fields: commas separate, double quotes enclose, and a
+     * doubled quote inside quotes is a literal quote
+     */
+    private static List<String> splitCsv(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+    
+    /**
+     * Reads the upload one record at a time. For CSV a record continues onto the next line
+     * while a quoted field is open; blank lines are skipped.
+     */
+    private static final class RecordReader {
+        
+        private final BufferedReader reader;
+        private final boolean csv;
+        private int lineNumber;
+        
+        RecordReader(BufferedReader reader, boolean csv) {
+            this.reader = reader;
+            this.csv = csv;
+        }
+        
+        List<RawRecord> next(int max) throws IOException {
+            List<RawRecord> records = new ArrayList<>(max);
+            String line;
+            while (records.size() < max && (line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                int start = lineNumber;
+                if (csv) {
+                    StringBuilder record = new StringBuilder(line);
+                    int quotes = count(line);
+                    while (quotes % 2 == 1 && (line = reader.readLine()) != null) {
+                        lineNumber++;
+                        record.append('\n').append(line);
+                        quotes += count(line);
+                    }
+                    line = record.toString();
+                }
+                records.add(new RawRecord(start, line));
+            }
+            return records;
+        }
+        
+        private static int count(String line) {
+            int quotes = 0;
+            for (int i = 0; i < line.length(); i++) {
+                if (line.charAt(i) == '"') {
+                    quotes++;
+                }
+            }
+            return quotes;
+        }
+    }
+    
+    private record RawRecord(int line, String text) {
+    }
+    
+    private record ParsedRecord(int line, MovieDto movie, String error) {
+    }
+    
+    private static final class ImportRun {
+        
+        long records;
+        long imported;
+        long failed;
+        final List<String> errors = new ArrayList<>();
+        // Normalized name to id and stored name for every name seen so far in this upload
+        final Map<String, ResolvedName> actors = new HashMap<>();
+        final Map<String, ResolvedName> categories = new HashMap<>();
+        
+        void fail(int line, String error, int records) {
+            failed += records;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("line " + line + ": " + error);
+            }
+        }
+    }
+} 
@@ -1,17 +1,42 @@
 package com.movierentalservice.service.impl;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import org.roaringbitmap.IntConsumer;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import com.movierentalservice.config.CacheConfig;
 import com.movierentalservice.dto.MovieDto;
+import com.movierentalservice.dto.MovieFacetsDto;
+import com.movierentalservice.dto.MoviePage;
+import com.movierentalservice.dto.MovieSearchCriteria;
 import com.movierentalservice.entity.Actor;
 import com.movierentalservice.entity.Category;
 import com.movierentalservice.entity.Movie;
 import com.movierentalservice.exception.ResourceNotFoundException;
+import com.movierentalservice.exception.ServiceUnavailableException;
 import com.movierentalservice.repository.MovieRepository;
-import com.movierentalservice.repository.RatingRepository;
+import com.movierentalservice.repository.MovieSort;
+import com.movierentalservice.repository.MovieSpecifications;
+import com.movierentalservice.search.AutocompleteIndex;
+import com.movierentalservice.search.CatalogIndexer;
+import com.movierentalservice.search.FuzzyNameIndex;
+import com.movierentalservice.search.MovieFilterIndex;
+import com.movierentalservice.search.MovieSearchIndex;
 import com.movierentalservice.service.MovieService;
 
 import lombok.RequiredArgsConstructor;
@@ -20,61 +45,239 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class MovieServiceImpl implements MovieService {
     
+    // Largest id list sent to the database in a single IN predicate
+    private static final int MAX_IDS_PER_QUERY = 1000;
+    
+    private static final int MAX_SUGGESTIONS = 5;
+    
+    private static final int MAX_COMPLETIONS = 20;
+    
     private final MovieRepository movieRepository;
-    private final RatingRepository ratingRepository;
+    private final MovieSearchIndex movieSearchIndex;
+    private final MovieFilterIndex movieFilterIndex;
+    private final FuzzyNameIndex fuzzyNameIndex;
+    private final AutocompleteIndex autocompleteIndex;
+    private final CatalogIndexer catalogIndexer;
+    private final CacheManager cacheManager;
+    
+    @Value("${movie.search.max-results:1000}")
+    private int maxSearchResults;
+    
+    @Value("${movie.search.max-page-size:100}")
+    private int maxPageSize;
     
     @Override
     public List<MovieDto> getAllMovies() {
-        List<Movie> movies = movieRepository.findAll();
-        return movies.stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return listMovies(CacheConfig.ALL_MOVIES_KEY, movieRepository::findAllIds);
     }
     
     @Override
+    @Cacheable(cacheNames = CacheConfig.MOVIES, key = "#movieId")
     public MovieDto getMovieById(Long movieId) {
-        Movie movie = movieRepository.findById(movieId)
+        Movie movie = movieRepository.findWithDetailsById(movieId)
                 .orElseThrow(() -> new ResourceNotFoundException("Movie", "id", movieId));
         
         return mapToDto(movie);
     }
     
     @Override
-    public List<MovieDto> searchMovies(String category, Integer year, Double rating, String search) {
-        List<Movie> movies = movieRepository.findAll();
+    public MoviePage searchMovies(MovieSearchCriteria criteria) {
+        // Combine all filters into one specification so the database evaluates them in a single query
+        Specification<Movie> spec = Specification.where(null);
+        
+        if (criteria.getRating() != null) {
+            spec = spec.and(MovieSpecifications.averageRatingAtLeast(criteria.getRating()));
+        }
+        
+        MovieSort sort = MovieSort.parse(criteria.getSort());
+        boolean indexReady = catalogIndexer.isReady();
+        
+        // Category, year, rating and availability are answered by the in-memory bitmaps when loaded
+        RoaringBitmap candidates = null;
+        if (indexReady) {
+            candidates = movieFilterIndex.filter(criteria.getCategory(), criteria.getYear(),
+                    criteria.getRating(), criteria.getAvailable());
+            if (candidates != null && candidates.isEmpty()) {
+                return new MoviePage(List.of(), null);
+            }
+        } else {
+            spec = spec.and(indexedFilters(criteria));
+        }
+        
+        String search = criteria.getSearch();
+        boolean textSearch = search != null && !search.isEmpty();
+        if (textSearch) {
+            if (indexReady) {
+                boolean fuzzy = Boolean.TRUE.equals(criteria.getFuzzy());
+                if (sort == null) {
+                    // Rank only the movies that pass the filters, so the cap never hides a match
+                    List<Long> rankedIds = fuzzy
+                            ? fuzzyNameIndex.search(search, maxSearchResults, candidates)
+                            : movieSearchIndex.search(search, maxSearchResults, candidates);
+                    if (rankedIds.isEmpty()) {
+                        return new MoviePage(List.of(), null);
+                    }
+                    return searchByRelevance(rankedIds, criteria);
+                }
+                // A sorted listing pages through every match, not just the best ranked ones
+                RoaringBitmap textMatches = fuzzy ? fuzzyNameIndex.matches(search) : movieSearchIndex.matches(search);
+                candidates = candidates == null ? textMatches : RoaringBitmap.and(candidates, textMatches);
+                if (candidates.isEmpty()) {
+                    return new MoviePage(List.of(), null);
+                }
+            } else {
+                spec = spec.and(MovieSpecifications.textContains(search));
+            }
+        }
+        
+        RoaringBitmap within = null;
+        if (candidates != null) {
+            // Small candidate sets go to the database by id; large ones are better served
+            // by the equivalent indexed predicates than by an enormous IN list, with text
+            // matches checked against the bitmap as rows come back
+            if (candidates.getLongCardinality() <= MAX_IDS_PER_QUERY) {
+                spec = spec.and(MovieSpecifications.idIn(toIds(candidates)));
+            } else {
+                spec = spec.and(indexedFilters(criteria));
+                within = textSearch ? candidates : null;
+            }
+        }
+        
+        return searchSorted(spec, sort != null ? sort : MovieSort.BY_ID, criteria, within);
+    }
+    
+    @Override
+    public MovieFacetsDto getFacets(MovieSearchCriteria criteria) {
+        // Facets are only served from memory; counting them in SQL would take a query per facet
+        if (!catalogIndexer.isReady()) {
+            throw new ServiceUnavailableException("Movie facets are not available while the catalog is loading");
+        }
+        
+        RoaringBitmap textMatches = null;
+        if (criteria.getSearch() != null && !criteria.getSearch().isEmpty()) {
+            textMatches = Boolean.TRUE.equals(criteria.getFuzzy())
+                    ? fuzzyNameIndex.matches(criteria.getSearch())
+                    : movieSearchIndex.matches(criteria.getSearch());
+        }
+        
+        return movieFilterIndex.facets(textMatches, criteria.getCategory(), criteria.getYear(),
+                criteria.getRating(), criteria.getAvailable());
+    }
+    
+    @Override
+    public List<String> suggestSpellings(String query) {
+        if (!catalogIndexer.isReady() || query == null) {
+            return List.of();
+        }
+        return fuzzyNameIndex.suggest(query, MAX_SUGGESTIONS);
+    }
+    
+    @Override
+    public List<String> complete(String prefix, int limit) {
+        if (prefix == null) {
+            return List.of();
+        }
+        return autocompleteIndex.complete(prefix, Math.max(1, Math.min(limit, MAX_COMPLETIONS)));
+    }
+    
+    private Specification<Movie> indexedFilters(MovieSearchCriteria criteria) {
+        Specification<Movie> spec = Specification.where(null);
+        
+        if (criteria.getCategory() != null && !criteria.getCategory().isEmpty()) {
+            spec = spec.and(MovieSpecifications.inCategory(criteria.getCategory()));
+        }
         
-        if (category != null && !category.isEmpty()) {
-            movies = movies.stream()
-                    .filter(movie -> movie.getCategories().stream()
-                            .anyMatch(c -> c.getName().equalsIgnoreCase(category)))
-                    .collect(Collectors.toList());
+        if (criteria.getYear() != null) {
+            spec = spec.and(MovieSpecifications.releasedIn(criteria.getYear()));
         }
         
-        if (year != null) {
-            movies = movies.stream()
-                    .filter(movie -> movie.getReleaseYear().equals(year))
-                    .collect(Collectors.toList());
+        if (criteria.getAvailable() != null) {
+            spec = spec.and(MovieSpecifications.inStock(criteria.getAvailable()));
         }
         
-        if (search != null && !search.isEmpty()) {
-            String searchLower = search.toLowerCase();
-            movies = movies.stream()
-                    .filter(movie -> 
-                        movie.getTitle().toLowerCase().contains(searchLower) ||
-                        movie.getDescription().toLowerCase().contains(searchLower) ||
-                        movie.getDirector().toLowerCase().contains(searchLower))
-                    .collect(Collectors.toList());
+        return spec;
+    }
+    
+    private MoviePage searchSorted(Specification<Movie> spec, MovieSort sort, MovieSearchCriteria criteria,
+                                   RoaringBitmap within) {
+        Sort order = sort.toSort();
+        
+        if (criteria.getLimit() == null) {
+            return new MoviePage(mapToDtos(retain(movieRepository.findAll(spec, order), within)), null);
+        }
+        
+        int limit = pageSize(criteria.getLimit());
+        if (criteria.getCursor() != null) {
+            MovieCursor cursor = MovieCursor.decode(criteria.getCursor(), sort);
+            spec = spec.and(MovieSpecifications.after(sort, cursor.getKey(), cursor.getId()));
         }
         
-        if (rating != null) {
-            movies = movies.stream()
-                    .filter(movie -> {
-                        Double avgRating = ratingRepository.getAverageRatingForMovie(movie.getId());
-                        return avgRating != null && avgRating >= rating;
-                    })
-                    .collect(Collectors.toList());
+        // Fetch one extra row to learn whether another page follows, without a count query
+        List<Movie> movies;
+        if (within == null) {
+            movies = movieRepository.findBy(spec, query -> query.sortBy(order).limit(limit + 1).all());
+        } else {
+            // Walk the sorted rows in keyset chunks until enough of them are in the bitmap
+            movies = new ArrayList<>();
+            Specification<Movie> chunkSpec = spec;
+            while (movies.size() <= limit) {
+                List<Movie> chunk = movieRepository.findBy(chunkSpec,
+                        query -> query.sortBy(order).limit(MAX_IDS_PER_QUERY).all());
+                movies.addAll(retain(chunk, within));
+                if (chunk.size() < MAX_IDS_PER_QUERY) {
+                    break;
+                }
+                Movie last = chunk.get(chunk.size() - 1);
+                chunkSpec = spec.and(MovieSpecifications.after(sort, sort.keyOf(last), last.getId()));
+            }
         }
         
+        String nextCursor = null;
+        if (movies.size() > limit) {
+            movies = movies.subList(0, limit);
+            Movie last = movies.get(limit - 1);
+            nextCursor = MovieCursor.encode(sort, sort.keyOf(last), last.getId());
+        }
+        
+        return new MoviePage(mapToDtos(movies), nextCursor);
+    }
+    
+    private static List<Movie> retain(List<Movie> movies, RoaringBitmap within) {
+        if (within == null) {
+            return movies;
+        }
+        return movies.stream()
+                .filter(movie -> within.contains(movie.getId().intValue()))
+                .collect(Collectors.toList());
+    }
+    
+    private MoviePage searchByRelevance(List<Long> candidates, MovieSearchCriteria criteria) {
+        int offset = criteria.getCursor() != null ? MovieCursor.decodeOffset(criteria.getCursor()) : 0;
+        int from = Math.min(offset, candidates.size());
+        int to = criteria.getLimit() == null
+                ? candidates.size()
+                : Math.min(from + pageSize(criteria.getLimit()), candidates.size());
+        List<Long> pageIds = candidates.subList(from, to);
+        
+        Map<Long, Movie> moviesById = movieRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Movie::getId, Function.identity()));
+        List<Movie> movies = pageIds.stream()
+                .map(moviesById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        
+        String nextCursor = to < candidates.size() ? MovieCursor.encodeOffset(to) : null;
+        return new MoviePage(mapToDtos(movies), nextCursor);
+    }
+    
+    private int pageSize(int requested) {
+        if (requested < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return Math.min(requested, maxPageSize);
+    }
+    
+    private List<MovieDto> mapToDtos(List<Movie> movies) {
         return movies.stream()
                 .map(this::mapToDto)
                 .collect(Collectors.toList());
@@ -82,12 +285,64 @@ public class MovieServiceImpl implements MovieService {
     
     @Override
     public List<MovieDto> getAvailableMovies() {
-        List<Movie> availableMovies = movieRepository.findAvailableMovies();
-        return availableMovies.stream()
-                .map(this::mapToDto)
+        // The availability bitmap is kept current by the stock events, so its ids need no listing cache
+        if (catalogIndexer.isReady()) {
+            return moviesOf(toIds(movieFilterIndex.filter(null, null, null, true)));
+        }
+        return listMovies(CacheConfig.AVAILABLE_MOVIES_KEY, movieRepository::findAvailableIds);
+    }
+    
+    /**
+     * Listings cache only the ids of their movies and take the movies themselves from the
+     * per-movie cache, so a stock or rating change evicts one entry instead of every listing
+     */
+    private List<MovieDto> listMovies(String listKey, Supplier<List<Long>> loadIds) {
+        return moviesOf(cache(CacheConfig.MOVIE_LISTS).get(listKey, loadIds::get));
+    }
+    
+    // Movies in the order of their ids, from the per-movie cache and in IN batches for the rest
+    private List<MovieDto> moviesOf(List<Long> ids) {
+        Cache movieCache = cache(CacheConfig.MOVIES);
+        
+        Map<Long, MovieDto> moviesById = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            MovieDto cached = movieCache.get(id, MovieDto.class);
+            if (cached != null) {
+                moviesById.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        for (int from = 0; from < missing.size(); from += MAX_IDS_PER_QUERY) {
+            List<Long> batch = missing.subList(from, Math.min(from + MAX_IDS_PER_QUERY, missing.size()));
+            for (Movie movie : movieRepository.findAll(MovieSpecifications.idIn(batch))) {
+                MovieDto movieDto = mapToDto(movie);
+                movieCache.put(movie.getId(), movieDto);
+                moviesById.put(movie.getId(), movieDto);
+            }
+        }
+        
+        return ids.stream()
+                .map(moviesById::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
     
+    private Cache cache(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            throw new IllegalStateException("Cache not configured: " + name);
+        }
+        return cache;
+    }
+    
+    private static List<Long> toIds(RoaringBitmap bitmap) {
+        List<Long> ids = new ArrayList<>(bitmap.getCardinality());
+        bitmap.forEach((IntConsumer) id -> ids.add((long) id));
+        return ids;
+    }
+    
     private MovieDto mapToDto(Movie movie) {
         return MovieDto.builder()
                 .id(movie.getId())
@@ -104,6 +359,7 @@ public class MovieServiceImpl implements MovieService {
                         .map(Category::getName)
                         .collect(Collectors.toList()))
                 .averageRating(movie.getAverageRating())
+                .ratingCount(movie.getRatingCount())
                 .stockQuantity(movie.getStockQuantity())
                 .available(movie.isAvailable())
                 .build();
@@ -4,13 +4,16 @@ import com.movierentalservice.dto.RatingDto;
 import com.movierentalservice.entity.Movie;
 import com.movierentalservice.entity.Rating;
 import com.movierentalservice.entity.User;
+import com.movierentalservice.event.MovieRatingChangedEvent;
 import com.movierentalservice.exception.ResourceNotFoundException;
 import com.movierentalservice.repository.MovieRepository;
 import com.movierentalservice.repository.RatingRepository;
 import com.movierentalservice.repository.UserRepository;
 import com.movierentalservice.service.RatingService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -24,8 +27,10 @@ public class RatingServiceImpl implements RatingService {
     private final RatingRepository ratingRepository;
     private final UserRepository userRepository;
     private final MovieRepository movieRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Override
+    @Transactional
     public RatingDto addRating(Long movieId, RatingDto ratingDto) {
         User user = userRepository.findById(ratingDto.getUserId())
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", ratingDto.getUserId()));
@@ -37,9 +42,13 @@ public class RatingServiceImpl implements RatingService {
         Optional<Rating> existingRating = ratingRepository.findByUserIdAndMovieId(user.getId(), movie.getId());
         
         Rating rating;
+        long sumDelta;
+        int countDelta;
         if (existingRating.isPresent()) {
             // Update existing rating
             rating = existingRating.get();
+            sumDelta = ratingDto.getRating() - rating.getRating();
+            countDelta = 0;
             rating.setRating(ratingDto.getRating());
         } else {
             // Create new rating
@@ -49,10 +58,16 @@ public class RatingServiceImpl implements RatingService {
                     .rating(ratingDto.getRating())
                     .createdAt(LocalDateTime.now())
                     .build();
+            sumDelta = ratingDto.getRating();
+            countDelta = 1;
         }
         
         Rating savedRating = ratingRepository.save(rating);
         
+        // Keep the movie's rating aggregates in step within the same transaction
+        movieRepository.applyRatingChange(movie.getId(), sumDelta, countDelta);
+        eventPublisher.publishEvent(new MovieRatingChangedEvent(movie.getId(), countDelta == 1, savedRating.getCreatedAt()));
+        
         return mapToDto(savedRating);
     }
     
@@ -84,11 +99,11 @@ public class RatingServiceImpl implements RatingService {
     
     @Override
     public Double getAverageRating(Long movieId) {
-        // Check if movie exists
-        movieRepository.findById(movieId)
+        Movie movie = movieRepository.findById(movieId)
                 .orElseThrow(() -> new ResourceNotFoundException("Movie", "id", movieId));
         
-        return ratingRepository.getAverageRatingForMovie(movieId);
+        // Unrated movies have no average
+        return movie.getRatingCount() > 0 ? movie.getAverageRating() : null;
     }
     
     private RatingDto mapToDto(Rating rating) {
@@ -0,0 +1,34 @@
+package com.movierentalservice.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Opaque position in the admin rental listing, which is ordered newest first: the next page
+ * resumes after the last {@code (rentalDate, id)} pair.
+ */
+@Getter
+@RequiredArgsConstructor
+final class RentalCursor {
+    
+    private final LocalDateTime rentalDate;
+    private final long id;
+    
+    static String encode(LocalDateTime rentalDate, Long id) {
+        String token = id + ":" + rentalDate;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    static RentalCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 2);
+            return new RentalCursor(LocalDateTime.parse(parts[1]), Long.parseLong(parts[0]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.movierentalservice.service.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.movierentalservice.dto.RentalDto;
+import com.movierentalservice.entity.Rental;
+import com.movierentalservice.exception.ResourceNotFoundException;
+import com.movierentalservice.repository.RentalRepository;
+import com.movierentalservice.repository.UserRepository;
+import com.movierentalservice.service.RentalExportService;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@Slf4j
+public class RentalExportServiceImpl implements RentalExportService {
+    
+    private static final String CSV_HEADER =
+            "id,userId,userFullName,movieId,movieTitle,rentalCode,rentalDate,returnDate,status\n";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final RentalRepository rentalRepository;
+    private final UserRepository userRepository;
+    private final ObjectWriter rentalWriter;
+    private final TransactionTemplate readOnlyTransaction;
+    
+    public RentalExportServiceImpl(RentalRepository rentalRepository,
+                                   UserRepository userRepository,
+                                   ObjectMapper objectMapper,
+                                   PlatformTransactionManager transactionManager) {
+        this.rentalRepository = rentalRepository;
+        this.userRepository = userRepository;
+        this.rentalWriter = objectMapper.writerFor(RentalDto.class);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+    
+    @Override
+    public StreamingResponseBody exportRentals(String email, String status, LocalDateTime from, LocalDateTime to,
+                                               Format format) {
+        Long userId = email == null ? null : userRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "email", email))
+                .getId();
+        Rental.RentalStatus rentalStatus = status == null ? null : Rental.RentalStatus.valueOf(status.toUpperCase());
+        
+        return output -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+            // The cursor only stays open inside a transaction
+            long rows = readOnlyTransaction.execute(transaction -> {
+                try (Stream<RentalDto> rentals = rentalRepository.streamForExport(userId, rentalStatus, from, to)) {
+                    return write(rentals, format, writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+            log.debug("Exported {} rentals as {}", rows, format);
+        };
+    }
+    
+    private long write(Stream<RentalDto> rentals, Format format, Writer writer) throws IOException {
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+        }
+        long rows = 0;
+        for (RentalDto rental : (Iterable<RentalDto>) rentals::iterator) {
+            if (format == Format.CSV) {
+                writeCsv(rental, writer);
+            } else {
+                writer.write(rentalWriter.writeValueAsString(rental));
+                writer.write('\n');
+            }
+            rows++;
+        }
+        return rows;
+    }
+    
+    private static void writeCsv(RentalDto rental, Writer writer) throws IOException {
+        writer.write(String.valueOf(rental.getId()));
+        writer.write(',');
+        writer.write(String.valueOf(rental.getUserId()));
+        writer.write(',');
+        writer.write(csv(rental.getUserFullName()));
+        writer.write(',');
+        writer.write(String.valueOf(rental.getMovieId()));
+        writer.write(',');
+        writer.write(csv(rental.getMovieTitle()));
+        writer.write(',');
+        writer.write(csv(rental.getRentalCode()));
+        writer.write(',');
+        writer.write(rental.getRentalDate() == null ? "" : rental.getRentalDate().toString());
+        writer.write(',');
+        writer.write(rental.getReturnDate() == null ? "" : rental.getReturnDate().toString());
+        writer.write(',');
+        writer.write(rental.getStatus());
+        writer.write('\n');
+    }
+    
+    // Quotes a value when it holds a separator, a quote or a line break
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+} 
@@ -2,24 +2,34 @@ package com.movierentalservice.service.impl;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.movierentalservice.dto.BatchRentalRequest;
 import com.movierentalservice.dto.RentalDto;
 import com.movierentalservice.entity.Movie;
 import com.movierentalservice.entity.Rental;
 import com.movierentalservice.entity.User;
+import com.movierentalservice.event.MovieStockChangedEvent;
+import com.movierentalservice.event.RentalStatusChangedEvent;
 import com.movierentalservice.exception.ResourceNotFoundException;
+import com.movierentalservice.jms.EmailMessage;
 import com.movierentalservice.jms.EmailSender;
 import com.movierentalservice.repository.MovieRepository;
 import com.movierentalservice.repository.RentalRepository;
 import com.movierentalservice.repository.UserRepository;
+import com.movierentalservice.service.RentalCodeGenerator;
 import com.movierentalservice.service.RentalService;
+import com.movierentalservice.service.WaitlistService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -31,9 +41,9 @@ public class RentalServiceImpl implements RentalService {
     private final UserRepository userRepository;
     private final MovieRepository movieRepository;
     private final EmailSender emailSender;
-    
-    @Value("${movie.rental.code.length:8}")
-    private int rentalCodeLength;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RentalCodeGenerator rentalCodeGenerator;
+    private final WaitlistService waitlistService;
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
     
@@ -43,16 +53,18 @@ public class RentalServiceImpl implements RentalService {
         User user = userRepository.findById(rentalDto.getUserId())
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", rentalDto.getUserId()));
         
-        Movie movie = movieRepository.findById(rentalDto.getMovieId())
-                .orElseThrow(() -> new ResourceNotFoundException("Movie", "id", rentalDto.getMovieId()));
-        
-        // Check if movie is available
-        if (movie.getStockQuantity() <= 0) {
+        // Reserve a copy first; the conditional update decides who gets the last one
+        if (movieRepository.reserveStock(rentalDto.getMovieId()) == 0) {
+            if (!movieRepository.existsById(rentalDto.getMovieId())) {
+                throw new ResourceNotFoundException("Movie", "id", rentalDto.getMovieId());
+            }
             throw new RuntimeException("Movie is not available for rental");
         }
         
-        // Generate unique rental code
-        String rentalCode = generateRentalCode();
+        Movie movie = movieRepository.findById(rentalDto.getMovieId())
+                .orElseThrow(() -> new ResourceNotFoundException("Movie", "id", rentalDto.getMovieId()));
+        
+        String rentalCode = rentalCodeGenerator.nextCode();
         
         // Create rental
         Rental rental = Rental.builder()
@@ -64,13 +76,14 @@ public class RentalServiceImpl implements RentalService {
                 .status(Rental.RentalStatus.ORDERED)
                 .build();
         
-        // Decrease movie stock
-        movie.setStockQuantity(movie.getStockQuantity() - 1);
-        movieRepository.save(movie);
+        // Loaded after the reservation, so it holds the stock this rental left
+        eventPublisher.publishEvent(new MovieStockChangedEvent(
+                movie.getId(), movie.getStockQuantity() + 1, movie.getStockQuantity()));
         
         Rental savedRental = rentalRepository.save(rental);
+        eventPublisher.publishEvent(RentalStatusChangedEvent.created(savedRental));
         
-        // Send rental confirmation email
+        // Queue the confirmation email; it commits or rolls back with the rental
         emailSender.sendRentalConfirmationEmail(
                 user.getEmail(),
                 user.getFullName(),
@@ -81,6 +94,65 @@ public class RentalServiceImpl implements RentalService {
         return mapToDto(savedRental);
     }
     
+    @Override
+    @Transactional
+    public List<RentalDto> createRentals(BatchRentalRequest request) {
+        Set<Long> movieIds = new LinkedHashSet<>(request.getMovieIds());
+        if (movieIds.size() != request.getMovieIds().size()) {
+            throw new IllegalArgumentException("Each movie can only be rented once per checkout");
+        }
+        
+        User user = userRepository.findById(request.getUserId())
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", request.getUserId()));
+        
+        // One conditional update for all movies; anything short of all of them rolls the checkout back
+        if (movieRepository.reserveStock(movieIds) != movieIds.size()) {
+            Set<Long> existing = movieRepository.findAllById(movieIds).stream()
+                    .map(Movie::getId)
+                    .collect(Collectors.toSet());
+            movieIds.stream()
+                    .filter(movieId -> !existing.contains(movieId))
+                    .findFirst()
+                    .ifPresent(movieId -> {
+                        throw new ResourceNotFoundException("Movie", "id", movieId);
+                    });
+            throw new RuntimeException("One or more movies are not available for rental");
+        }
+        
+        Map<Long, Movie> movies = movieRepository.findAllById(movieIds).stream()
+                .collect(Collectors.toMap(Movie::getId, Function.identity()));
+        LocalDateTime rentalDate = request.getRentalDate() != null ? request.getRentalDate() : LocalDateTime.now();
+        LocalDateTime returnDate = request.getReturnDate() != null ? request.getReturnDate() : rentalDate.plusDays(7);
+        
+        List<Rental> rentals = movieIds.stream()
+                .map(movieId -> Rental.builder()
+                        .user(user)
+                        .movie(movies.get(movieId))
+                        .rentalCode(rentalCodeGenerator.nextCode())
+                        .rentalDate(rentalDate)
+                        .returnDate(returnDate)
+                        .status(Rental.RentalStatus.ORDERED)
+                        .build())
+                .collect(Collectors.toList());
+        List<Rental> savedRentals = rentalRepository.saveAll(rentals);
+        movies.values().forEach(movie -> eventPublisher.publishEvent(new MovieStockChangedEvent(
+                movie.getId(), movie.getStockQuantity() + 1, movie.getStockQuantity())));
+        savedRentals.forEach(rental -> eventPublisher.publishEvent(RentalStatusChangedEvent.created(rental)));
+        
+        // One confirmation email for the whole checkout
+        emailSender.sendRentalConfirmationEmail(
+                user.getEmail(),
+                user.getFullName(),
+                savedRentals.stream()
+                        .map(rental -> new EmailMessage.RentedMovie(rental.getMovie().getTitle(), rental.getRentalCode()))
+                        .collect(Collectors.toList())
+        );
+        
+        return savedRentals.stream()
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
+    }
+    
     @Override
     public RentalDto getRentalById(Long rentalId) {
         Rental rental = rentalRepository.findById(rentalId)
@@ -144,51 +216,49 @@ public class RentalServiceImpl implements RentalService {
     @Override
     @Transactional
     public RentalDto cancelRental(Long rentalId) {
+        return changeStatus(rentalId, Rental.RentalStatus.CANCELLED);
+    }
+    
+    @Override
+    @Transactional
+    public RentalDto changeStatus(Long rentalId, Rental.RentalStatus status) {
+        // Guarded update: the status check and the change are a single statement. Source statuses
+        // are tried one at a time so the status the rental left is known for the rollups.
+        LocalDateTime now = LocalDateTime.now();
+        Rental.RentalStatus previous = null;
+        for (Rental.RentalStatus from : status.allowedFrom()) {
+            if (transition(rentalId, from, status, now) > 0) {
+                previous = from;
+                break;
+            }
+        }
+        
         Rental rental = rentalRepository.findById(rentalId)
                 .orElseThrow(() -> new ResourceNotFoundException("Rental", "id", rentalId));
-        
-        // Only ordered or taken rentals can be cancelled
-        if (rental.getStatus() != Rental.RentalStatus.ORDERED && 
-            rental.getStatus() != Rental.RentalStatus.TAKEN) {
-            throw new RuntimeException("Rental cannot be cancelled");
+        if (previous == null) {
+            throw new RuntimeException("Rental cannot be changed from " + rental.getStatus() + " to " + status);
         }
+        eventPublisher.publishEvent(new RentalStatusChangedEvent(
+                rental.getMovie().getId(), rental.getUser().getId(), previous, status, 1, now));
         
-        // If the movie was taken, increase movie stock
-        boolean wasTaken = rental.getStatus() == Rental.RentalStatus.TAKEN;
-        
-        // Update rental status and set returnDate to null
-        rental.setStatus(Rental.RentalStatus.CANCELLED);
-        rental.setReturnDate(null);
-        
-        // Return movie to inventory if it was taken
-        if (wasTaken) {
-            Movie movie = rental.getMovie();
-            movie.setStockQuantity(movie.getStockQuantity() + 1);
-            movieRepository.save(movie);
+        // Closing the rental puts its copy back, to the next waiting user if there is one
+        if (status.releasesStock()) {
+            waitlistService.returnCopies(rental.getMovie().getId(), 1);
         }
         
-        Rental updatedRental = rentalRepository.save(rental);
-        
-        return mapToDto(updatedRental);
+        return mapToDto(rental);
     }
     
-    private String generateRentalCode() {
-        String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-        StringBuilder sb = new StringBuilder();
-        Random random = new Random();
-        
-        for (int i = 0; i < rentalCodeLength; i++) {
-            sb.append(chars.charAt(random.nextInt(chars.length())));
+    private int transition(Long rentalId, Rental.RentalStatus from, Rental.RentalStatus to, LocalDateTime now) {
+        Set<Rental.RentalStatus> source = EnumSet.of(from);
+        switch (to) {
+            case TAKEN:
+                return rentalRepository.take(rentalId, source, to, now);
+            case RETURNED:
+                return rentalRepository.transition(rentalId, source, to, now, now);
+            default:
+                return rentalRepository.transition(rentalId, source, to, null, now);
         }
-        
-        String rentalCode = sb.toString();
-        
-        // Check if code already exists
-        if (rentalRepository.findByRentalCode(rentalCode).isPresent()) {
-            return generateRentalCode(); // Recursively generate a new code
-        }
-        
-        return rentalCode;
     }
     
     private RentalDto mapToDto(Rental rental) {
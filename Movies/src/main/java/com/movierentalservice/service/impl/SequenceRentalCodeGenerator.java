@@ -0,0 +1,70 @@
+package com.movierentalservice.service.impl;
+
+import java.math.BigInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.movierentalservice.service.RentalCodeGenerator;
+
+/**
+ * Numbers rentals from blocks reserved on a database sequence, so instances sharing the
+ * database never hand out the same number and only one call in {@code block-size} touches
+ * the database. Each number is mapped one-to-one onto the code space and written in the
+ * rental code alphabet, so consecutive rentals do not get consecutive codes.
+ */
+@Service
+public class SequenceRentalCodeGenerator implements RentalCodeGenerator {
+    
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final String SEQUENCE = "rental_code_block_seq";
+    
+    // Coprime with every power of 36, which makes the affine map below a bijection
+    private static final BigInteger MULTIPLIER = BigInteger.valueOf(2_654_435_761L);
+    private static final BigInteger OFFSET = BigInteger.valueOf(1_013_904_223L);
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final int codeLength;
+    private final int blockSize;
+    private final BigInteger codeSpace;
+    
+    private long next;
+    private long blockEnd;
+    
+    public SequenceRentalCodeGenerator(JdbcTemplate jdbcTemplate,
+                                       @Value("${movie.rental.code.length:8}") int codeLength,
+                                       @Value("${movie.rental.code.block-size:1000}") int blockSize) {
+        if (codeLength < 4 || codeLength > 12) {
+            throw new IllegalStateException("movie.rental.code.length must be between 4 and 12");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.codeLength = codeLength;
+        this.blockSize = blockSize;
+        this.codeSpace = BigInteger.valueOf(ALPHABET.length()).pow(codeLength);
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE);
+    }
+    
+    @Override
+    public synchronized String nextCode() {
+        if (next == blockEnd) {
+            long block = jdbcTemplate.queryForObject("SELECT nextval('" + SEQUENCE + "')", Long.class);
+            next = (block - 1) * blockSize;
+            blockEnd = next + blockSize;
+        }
+        BigInteger number = BigInteger.valueOf(next++);
+        if (number.compareTo(codeSpace) >= 0) {
+            throw new IllegalStateException("Rental codes of length " + codeLength + " are exhausted");
+        }
+        return encode(number.multiply(MULTIPLIER).add(OFFSET).mod(codeSpace).longValue());
+    }
+    
+    private String encode(long value) {
+        char[] code = new char[codeLength];
+        for (int i = codeLength - 1; i >= 0; i--) {
+            code[i] = ALPHABET.charAt((int) (value % ALPHABET.length()));
+            value /= ALPHABET.length();
+        }
+        return new String(code);
+    }
+} 
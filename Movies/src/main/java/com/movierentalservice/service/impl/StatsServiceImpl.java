@@ -0,0 +1,112 @@
+package com.movierentalservice.service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.movierentalservice.dto.AdminStatsDto;
+import com.movierentalservice.entity.RatingHourlyStats;
+import com.movierentalservice.entity.RentalHourlyStats;
+import com.movierentalservice.repository.MovieRentalStatsRepository;
+import com.movierentalservice.repository.RatingHourlyStatsRepository;
+import com.movierentalservice.repository.RentalHourlyStatsRepository;
+import com.movierentalservice.repository.UserRentalStatsRepository;
+import com.movierentalservice.scheduler.StatsRollupRebuilder;
+import com.movierentalservice.service.StatsService;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class StatsServiceImpl implements StatsService {
+    
+    private final RentalHourlyStatsRepository rentalHourlyStatsRepository;
+    private final RatingHourlyStatsRepository ratingHourlyStatsRepository;
+    private final MovieRentalStatsRepository movieRentalStatsRepository;
+    private final UserRentalStatsRepository userRentalStatsRepository;
+    private final StatsRollupRebuilder statsRollupRebuilder;
+    
+    @Value("${movie.stats.max-hours:2232}")
+    private long maxHours;
+    
+    @Value("${movie.stats.max-top:100}")
+    private int maxTop;
+    
+    @Override
+    @Transactional(readOnly = true)
+    public AdminStatsDto getStats(LocalDateTime from, LocalDateTime to, String granularity, int top) {
+        ChronoUnit unit = ChronoUnit.valueOf((granularity + "S").toUpperCase());
+        if (unit != ChronoUnit.HOURS && unit != ChronoUnit.DAYS) {
+            throw new IllegalArgumentException("granularity must be HOUR or DAY");
+        }
+        if (top < 1) {
+            throw new IllegalArgumentException("top must be positive");
+        }
+        LocalDateTime end = to != null ? to : LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        LocalDateTime start = from != null ? from : end.minusDays(7);
+        // The hourly rows read are what bounds the cost, however long the history is
+        long hours = Duration.between(start, end).toHours();
+        if (hours <= 0 || hours > maxHours) {
+            throw new IllegalArgumentException("The period must be between 1 and " + maxHours + " hours long");
+        }
+        PageRequest topPage = PageRequest.of(0, Math.min(top, maxTop));
+        
+        Map<LocalDateTime, AdminStatsDto.RentalBucket> rentals = new TreeMap<>();
+        for (RentalHourlyStats row : rentalHourlyStatsRepository
+                .findByBucketGreaterThanEqualAndBucketLessThanOrderByBucketAsc(start, end)) {
+            AdminStatsDto.RentalBucket bucket = rentals.computeIfAbsent(row.getBucket().truncatedTo(unit),
+                    bucketStart -> new AdminStatsDto.RentalBucket(bucketStart, 0, 0, 0, 0));
+            switch (row.getStatus()) {
+                case ORDERED:
+                    bucket.setOrdered(bucket.getOrdered() + row.getRentals());
+                    break;
+                case TAKEN:
+                    bucket.setTaken(bucket.getTaken() + row.getRentals());
+                    break;
+                case RETURNED:
+                    bucket.setReturned(bucket.getReturned() + row.getRentals());
+                    break;
+                case CANCELLED:
+                    bucket.setCancelled(bucket.getCancelled() + row.getRentals());
+                    break;
+            }
+        }
+        
+        Map<LocalDateTime, Long> ratings = ratingHourlyStatsRepository
+                .findByBucketGreaterThanEqualAndBucketLessThanOrderByBucketAsc(start, end).stream()
+                .collect(Collectors.groupingBy(row -> row.getBucket().truncatedTo(unit), TreeMap::new,
+                        Collectors.summingLong(RatingHourlyStats::getRatings)));
+        
+        return AdminStatsDto.builder()
+                .from(start)
+                .to(end)
+                .granularity(unit == ChronoUnit.HOURS ? "HOUR" : "DAY")
+                .rentals(new ArrayList<>(rentals.values()))
+                .ratings(ratings.entrySet().stream()
+                        .map(entry -> new AdminStatsDto.RatingBucket(entry.getKey(), entry.getValue()))
+                        .collect(Collectors.toList()))
+                .moviesOut(movieRentalStatsRepository.findMostOut(topPage).stream()
+                        .map(row -> new AdminStatsDto.MovieOut(row.getMovieId(), row.getTitle(),
+                                row.getOrderedCount(), row.getTakenCount()))
+                        .collect(Collectors.toList()))
+                .topRenters(userRentalStatsRepository.findTopRenters(topPage).stream()
+                        .map(row -> new AdminStatsDto.Renter(row.getUserId(), row.getFullName(), row.getRentals()))
+                        .collect(Collectors.toList()))
+                .build();
+    }
+    
+    @Override
+    public void rebuild() {
+        statsRollupRebuilder.rebuild();
+    }
+}
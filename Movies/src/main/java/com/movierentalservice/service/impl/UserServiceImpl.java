@@ -10,6 +10,7 @@ import com.movierentalservice.repository.UserRepository;
 import com.movierentalservice.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 
@@ -21,6 +22,7 @@ public class UserServiceImpl implements UserService {
     private final EmailSender emailSender;
     
     @Override
+    @Transactional
     public UserDto registerUser(RegistrationRequest registrationRequest) {
         // Check if email already exists
         if (userRepository.existsByEmail(registrationRequest.getEmail())) {
@@ -41,7 +43,7 @@ public class UserServiceImpl implements UserService {
         
         User savedUser = userRepository.save(user);
         
-        // Send registration email
+        // Queue the registration email with the user, in the same transaction
         emailSender.sendRegistrationEmail(savedUser.getEmail(), savedUser.getFullName());
         
         return mapToDto(savedUser);
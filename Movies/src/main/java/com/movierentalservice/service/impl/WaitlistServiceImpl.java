@@ -0,0 +1,183 @@
+package com.movierentalservice.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.movierentalservice.dto.WaitlistEntryDto;
+import com.movierentalservice.entity.Rental;
+import com.movierentalservice.entity.User;
+import com.movierentalservice.entity.WaitlistEntry;
+import com.movierentalservice.event.MovieStockChangedEvent;
+import com.movierentalservice.event.RentalStatusChangedEvent;
+import com.movierentalservice.exception.ResourceNotFoundException;
+import com.movierentalservice.jms.EmailSender;
+import com.movierentalservice.repository.MovieRepository;
+import com.movierentalservice.repository.RentalRepository;
+import com.movierentalservice.repository.UserRepository;
+import com.movierentalservice.repository.WaitlistEntryRepository;
+import com.movierentalservice.service.RentalCodeGenerator;
+import com.movierentalservice.service.WaitlistService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WaitlistServiceImpl implements WaitlistService {
+    
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final MovieRepository movieRepository;
+    private final UserRepository userRepository;
+    private final RentalRepository rentalRepository;
+    private final RentalCodeGenerator rentalCodeGenerator;
+    private final EmailSender emailSender;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Override
+    @Transactional
+    public WaitlistEntryDto joinWaitlist(Long movieId, Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+        
+        int stockQuantity = movieRepository.lockStockQuantityById(movieId)
+                .orElseThrow(() -> new ResourceNotFoundException("Movie", "id", movieId));
+        
+        if (waitlistEntryRepository.findByMovieIdAndUserIdAndStatus(movieId, userId, WaitlistEntry.Status.WAITING).isPresent()) {
+            throw new IllegalArgumentException("User is already on the waitlist for this movie");
+        }
+        if (stockQuantity > 0 && !waitlistEntryRepository.existsByMovieIdAndStatus(movieId, WaitlistEntry.Status.WAITING)) {
+            throw new IllegalArgumentException("Movie is available for rental");
+        }
+        
+        WaitlistEntry entry = waitlistEntryRepository.save(WaitlistEntry.builder()
+                .user(user)
+                .movie(movieRepository.getReferenceById(movieId))
+                .status(WaitlistEntry.Status.WAITING)
+                .build());
+        
+        // Copies added by a restock while others were already waiting go out right away
+        int assigned = assign(movieId);
+        if (assigned > 0) {
+            eventPublisher.publishEvent(new MovieStockChangedEvent(movieId, stockQuantity, stockQuantity - assigned));
+        }
+        
+        return mapToDto(entry);
+    }
+    
+    @Override
+    @Transactional
+    public void leaveWaitlist(Long movieId, Long userId) {
+        movieRepository.lockStockQuantityById(movieId)
+                .orElseThrow(() -> new ResourceNotFoundException("Movie", "id", movieId));
+        
+        WaitlistEntry entry = waitlistEntryRepository.findByMovieIdAndUserIdAndStatus(movieId, userId, WaitlistEntry.Status.WAITING)
+                .orElseThrow(() -> new ResourceNotFoundException("Waitlist entry", "userId", userId));
+        
+        entry.setStatus(WaitlistEntry.Status.CANCELLED);
+        waitlistEntryRepository.save(entry);
+    }
+    
+    @Override
+    public List<WaitlistEntryDto> getWaitlist(Long movieId) {
+        // Check if movie exists
+        if (!movieRepository.existsById(movieId)) {
+            throw new ResourceNotFoundException("Movie", "id", movieId);
+        }
+        
+        List<WaitlistEntry> entries = waitlistEntryRepository.findByMovieIdAndStatusOrderByCreatedAtAscIdAsc(
+                movieId, WaitlistEntry.Status.WAITING);
+        
+        return entries.stream()
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int assignAvailableCopies(Long movieId) {
+        movieRepository.lockStockQuantityById(movieId);
+        return assign(movieId);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void returnCopies(Long movieId, int copies) {
+        // The lock read gives the stock before the copies come back
+        int stockBefore = movieRepository.lockStockQuantityById(movieId)
+                .orElseThrow(() -> new ResourceNotFoundException("Movie", "id", movieId));
+        movieRepository.releaseStock(movieId, copies);
+        int assigned = assign(movieId);
+        eventPublisher.publishEvent(new MovieStockChangedEvent(movieId, stockBefore, stockBefore + copies - assigned));
+    }
+    
+    // Callers hold the movie's row lock
+    private int assign(Long movieId) {
+        int assigned = 0;
+        while (true) {
+            Optional<WaitlistEntry> next = waitlistEntryRepository.findFirstByMovieIdAndStatusOrderByCreatedAtAscIdAsc(
+                    movieId, WaitlistEntry.Status.WAITING);
+            if (next.isEmpty() || movieRepository.reserveStock(movieId) == 0) {
+                return assigned;
+            }
+            handOver(next.get());
+            assigned++;
+        }
+    }
+    
+    private void handOver(WaitlistEntry entry) {
+        LocalDateTime now = LocalDateTime.now();
+        Rental rental = rentalRepository.save(Rental.builder()
+                .user(entry.getUser())
+                .movie(entry.getMovie())
+                .rentalCode(rentalCodeGenerator.nextCode())
+                .rentalDate(now)
+                .returnDate(now.plusDays(7))
+                .status(Rental.RentalStatus.ORDERED)
+                .build());
+        eventPublisher.publishEvent(RentalStatusChangedEvent.created(rental));
+        
+        entry.setStatus(WaitlistEntry.Status.FULFILLED);
+        entry.setRental(rental);
+        entry.setFulfilledAt(now);
+        waitlistEntryRepository.save(entry);
+        
+        log.debug("Handed a copy of movie {} to waiting user {}", entry.getMovie().getId(), entry.getUser().getId());
+        
+        // Queued with the rental, so the user is only told about a copy that is really theirs
+        emailSender.sendWaitlistRentalEmail(
+                entry.getUser().getEmail(),
+                entry.getUser().getFullName(),
+                entry.getMovie().getTitle(),
+                rental.getRentalCode()
+        );
+    }
+    
+    private WaitlistEntryDto mapToDto(WaitlistEntry entry) {
+        Integer position = null;
+        if (entry.getStatus() == WaitlistEntry.Status.WAITING) {
+            position = Math.toIntExact(waitlistEntryRepository.countByMovieIdAndStatusAndCreatedAtBefore(
+                    entry.getMovie().getId(), WaitlistEntry.Status.WAITING, entry.getCreatedAt()) + 1);
+        }
+        
+        return WaitlistEntryDto.builder()
+                .id(entry.getId())
+                .userId(entry.getUser().getId())
+                .userFullName(entry.getUser().getFullName())
+                .movieId(entry.getMovie().getId())
+                .movieTitle(entry.getMovie().getTitle())
+                .status(entry.getStatus().name())
+                .position(position)
+                .rentalCode(entry.getRental() != null ? entry.getRental().getRentalCode() : null)
+                .createdAt(entry.getCreatedAt())
+                .fulfilledAt(entry.getFulfilledAt())
+                .build();
+    }
+} 
@@ -0,0 +1,274 @@
+package com.movierentalservice.stats;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.movierentalservice.entity.Rental;
+import com.movierentalservice.entity.RentalHourlyStats;
+import com.movierentalservice.event.MovieRatingChangedEvent;
+import com.movierentalservice.event.RentalStatusChangedEvent;
+import com.movierentalservice.repository.MovieRentalStatsRepository;
+import com.movierentalservice.repository.RatingHourlyStatsRepository;
+import com.movierentalservice.repository.RentalHourlyStatsRepository;
+import com.movierentalservice.repository.UserRentalStatsRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the dashboard rollups up to date without the dashboard ever aggregating history.
+ * Committed rental and rating changes are added up in memory, then written periodically as
+ * one increment per touched row, so busy rows such as the current hour are written once per
+ * flush instead of once per rental and requests never wait on the rollups. Deltas still in
+ * memory when the process dies are lost; the periodic rebuild repairs them.
+ * <p>
+ * Movie and user totals are recounted in full by a rebuild, so a rental must be either in the
+ * recount or in the deltas, never both. Rental transactions hold a shared commit gate from just
+ * before they commit until their delta is recorded; the recount takes the gate exclusively
+ * until its transaction has fixed the snapshot it counts from.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StatsRollupUpdater {
+    
+    private final RentalHourlyStatsRepository rentalHourlyStatsRepository;
+    private final RatingHourlyStatsRepository ratingHourlyStatsRepository;
+    private final MovieRentalStatsRepository movieRentalStatsRepository;
+    private final UserRentalStatsRepository userRentalStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+    
+    // Pending deltas; a flush removes each entry atomically, later changes start a new one
+    private final Map<RentalHourlyStats.Key, Long> rentalDeltas = new ConcurrentHashMap<>();
+    private final Map<LocalDateTime, Long> ratingDeltas = new ConcurrentHashMap<>();
+    private final Map<MovieStatus, Long> movieDeltas = new ConcurrentHashMap<>();
+    private final Map<Long, Long> userDeltas = new ConcurrentHashMap<>();
+    
+    // Held while writing deltas and while rebuilding, so a flush never lands in a table being rebuilt
+    private final Lock writeLock = new ReentrantLock();
+    
+    // Shared by rental transactions while they commit, exclusive while movie and user totals are recounted
+    private final ReadWriteLock commitGate = new ReentrantReadWriteLock();
+    
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onRentalStatusChanged(RentalStatusChangedEvent event) {
+        Lock committing = commitGate.readLock();
+        committing.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        record(event);
+                    }
+                } finally {
+                    committing.unlock();
+                }
+            }
+        });
+    }
+    
+    private void record(RentalStatusChangedEvent event) {
+        long rentals = event.getRentals();
+        rentalDeltas.merge(new RentalHourlyStats.Key(hourOf(event.getChangedAt()), event.getTo()), rentals, Long::sum);
+        if (isOut(event.getTo())) {
+            movieDeltas.merge(new MovieStatus(event.getMovieId(), event.getTo()), rentals, Long::sum);
+        }
+        if (event.getFrom() != null && isOut(event.getFrom())) {
+            movieDeltas.merge(new MovieStatus(event.getMovieId(), event.getFrom()), -rentals, Long::sum);
+        }
+        if (event.getFrom() == null) {
+            userDeltas.merge(event.getUserId(), rentals, Long::sum);
+        }
+    }
+    
+    @TransactionalEventListener
+    public void onRatingChanged(MovieRatingChangedEvent event) {
+        if (event.isNewRating()) {
+            ratingDeltas.merge(hourOf(event.getRatedAt()), 1L, Long::sum);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${movie.stats.flush-delay-ms:5000}")
+    @PreDestroy
+    public void flush() {
+        writeLock.lock();
+        try {
+            Map<RentalHourlyStats.Key, Long> rentals = drain(rentalDeltas, key -> true);
+            Map<LocalDateTime, Long> ratings = drain(ratingDeltas, bucket -> true);
+            Map<MovieStatus, Long> movies = drain(movieDeltas, key -> true);
+            Map<Long, Long> users = drain(userDeltas, userId -> true);
+            if (rentals.isEmpty() && ratings.isEmpty() && movies.isEmpty() && users.isEmpty()) {
+                return;
+            }
+            
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(rentals, ratings, movies, users));
+            } catch (RuntimeException e) {
+                // Put the deltas back for the next flush
+                restore(rentals, ratings, movies, users);
+                log.warn("Failed to write dashboard rollups, will retry", e);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    /**
+     * Runs a rebuild of the hourly buckets before the cutoff with flushing paused. The pending
+     * deltas for those buckets are dropped, and put back if the rebuild fails.
+     *
+     * @param cutoff start of the first hourly bucket the rebuild leaves to the increments
+     * @param rebuild rewrites the buckets in its own transaction
+     * @return whatever the rebuild returns
+     */
+    public <T> T rebuildBuckets(LocalDateTime cutoff, Supplier<T> rebuild) {
+        writeLock.lock();
+        try {
+            Map<RentalHourlyStats.Key, Long> rentals = drain(rentalDeltas, key -> key.getBucket().isBefore(cutoff));
+            Map<LocalDateTime, Long> ratings = drain(ratingDeltas, bucket -> bucket.isBefore(cutoff));
+            return rebuild(rebuild, () -> restore(rentals, ratings, Map.of(), Map.of()));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    /**
+     * Runs a recount of every movie and user total with flushing paused, in one snapshot
+     * transaction. Rental commits are held back from dropping the pending deltas until the
+     * snapshot is taken, so every rental is either in the recount or in a later delta. The
+     * gate is only taken once the transaction has its connection, as rental transactions do.
+     * The deltas are put back if the recount fails.
+     *
+     * @param takeSnapshot the first statement of the recount, which fixes its snapshot
+     * @param recount the rest of the recount
+     * @return whatever the recount returns
+     */
+    public <T> T rebuildTotals(Runnable takeSnapshot, Supplier<T> recount) {
+        // Both recounts must read one snapshot that includes no rental committed after it was taken.
+        // Rental transactions are not serializable, so this never fails on a serialization conflict.
+        TransactionTemplate snapshot = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+        
+        writeLock.lock();
+        try {
+            List<Runnable> restore = new ArrayList<>();
+            return rebuild(() -> snapshot.execute(status -> {
+                Lock holdingCommits = commitGate.writeLock();
+                holdingCommits.lock();
+                try {
+                    Map<MovieStatus, Long> movies = drain(movieDeltas, key -> true);
+                    Map<Long, Long> users = drain(userDeltas, userId -> true);
+                    restore.add(() -> restore(Map.of(), Map.of(), movies, users));
+                    takeSnapshot.run();
+                } finally {
+                    holdingCommits.unlock();
+                }
+                return recount.get();
+            }), () -> restore.forEach(Runnable::run));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    private static <T> T rebuild(Supplier<T> rebuild, Runnable restore) {
+        try {
+            return rebuild.get();
+        } catch (RuntimeException e) {
+            restore.run();
+            throw e;
+        }
+    }
+    
+    private void write(Map<RentalHourlyStats.Key, Long> rentals,
+                       Map<LocalDateTime, Long> ratings,
+                       Map<MovieStatus, Long> movies,
+                       Map<Long, Long> users) {
+        rentals.forEach((key, delta) -> upsert(
+                () -> rentalHourlyStatsRepository.increment(key.getBucket(), key.getStatus().name(), delta),
+                () -> rentalHourlyStatsRepository.insertIfAbsent(key.getBucket(), key.getStatus().name(), delta)));
+        
+        ratings.forEach((bucket, delta) -> upsert(
+                () -> ratingHourlyStatsRepository.increment(bucket, delta),
+                () -> ratingHourlyStatsRepository.insertIfAbsent(bucket, delta)));
+        
+        Map<Long, long[]> byMovie = new HashMap<>();
+        movies.forEach((key, delta) -> byMovie.computeIfAbsent(key.movieId(), movieId -> new long[2])
+                [key.status() == Rental.RentalStatus.ORDERED ? 0 : 1] += delta);
+        byMovie.forEach((movieId, delta) -> upsert(
+                () -> movieRentalStatsRepository.increment(movieId, delta[0], delta[1]),
+                () -> movieRentalStatsRepository.insertIfAbsent(movieId, delta[0], delta[1])));
+        
+        users.forEach((userId, delta) -> upsert(
+                () -> userRentalStatsRepository.increment(userId, delta),
+                () -> userRentalStatsRepository.insertIfAbsent(userId, delta)));
+    }
+    
+    /**
+     * Increments an existing row or creates it. The insert does nothing when another writer
+     * created the row first, in which case the row is there for the second increment.
+     */
+    private static void upsert(IntSupplier increment, IntSupplier insertIfAbsent) {
+        if (increment.getAsInt() == 0 && insertIfAbsent.getAsInt() == 0) {
+            increment.getAsInt();
+        }
+    }
+    
+    private void restore(Map<RentalHourlyStats.Key, Long> rentals,
+                         Map<LocalDateTime, Long> ratings,
+                         Map<MovieStatus, Long> movies,
+                         Map<Long, Long> users) {
+        rentals.forEach((key, delta) -> rentalDeltas.merge(key, delta, Long::sum));
+        ratings.forEach((key, delta) -> ratingDeltas.merge(key, delta, Long::sum));
+        movies.forEach((key, delta) -> movieDeltas.merge(key, delta, Long::sum));
+        users.forEach((key, delta) -> userDeltas.merge(key, delta, Long::sum));
+    }
+    
+    private static <K> Map<K, Long> drain(Map<K, Long> deltas, Predicate<K> selected) {
+        Map<K, Long> drained = new HashMap<>();
+        for (K key : deltas.keySet()) {
+            if (!selected.test(key)) {
+                continue;
+            }
+            Long delta = deltas.remove(key);
+            if (delta != null && delta != 0) {
+                drained.put(key, delta);
+            }
+        }
+        return drained;
+    }
+    
+    // Copies held by a rental in this status count as out
+    private static boolean isOut(Rental.RentalStatus status) {
+        return status == Rental.RentalStatus.ORDERED || status == Rental.RentalStatus.TAKEN;
+    }
+    
+    private static LocalDateTime hourOf(LocalDateTime time) {
+        return (time != null ? time : LocalDateTime.now()).truncatedTo(ChronoUnit.HOURS);
+    }
+    
+    private record MovieStatus(Long movieId, Rental.RentalStatus status) {
+    }
+}
@@ -0,0 +1,70 @@
+package com.movierentalservice.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movierentalservice.dto.MovieDto;
+
+/**
+ * Generates a synthetic catalog as an NDJSON import, one line at a time so even a million
+ * titles are never held in memory. The same index always gives the same movie.
+ */
+final class BenchmarkCatalog {
+    
+    static final List<String> CATEGORIES = List.of("Action", "Comedy", "Drama", "Horror", "Sci-Fi",
+            "Romance", "Thriller", "Animation", "Documentary", "Fantasy", "Crime", "Western");
+    static final int FIRST_YEAR = 1950;
+    static final int YEARS = 75;
+    
+    private static final int ACTORS = 5000;
+    private static final String[] WORDS = {"dark", "night", "river", "last", "city", "dream", "storm",
+            "silent", "golden", "winter", "lost", "empire", "shadow", "summer", "ghost", "road"};
+    
+    private BenchmarkCatalog() {
+    }
+    
+    static MovieDto movie(int i) {
+        return MovieDto.builder()
+                .title(word(i) + " " + word(i / WORDS.length) + " " + i)
+                .description("The " + word(i * 7) + " story of a " + word(i * 13) + " " + word(i * 17))
+                .releaseYear(FIRST_YEAR + i % YEARS)
+                .director("Director " + i % 2000)
+                .duration(80 + i % 90)
+                .stockQuantity(i % 4)
+                .actors(List.of("Actor " + i % ACTORS, "Actor " + (i * 31) % ACTORS, "Actor " + (i * 97) % ACTORS))
+                .categories(List.of(CATEGORIES.get(i % CATEGORIES.size()), CATEGORIES.get((i / 3) % CATEGORIES.size())))
+                .build();
+    }
+    
+    static InputStream ndjson(int movies, ObjectMapper objectMapper) {
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+            
+            private int next;
+            
+            @Override
+            public boolean hasMoreElements() {
+                return next < movies;
+            }
+            
+            @Override
+            public InputStream nextElement() {
+                try {
+                    String line = objectMapper.writeValueAsString(movie(next++)) + "\n";
+                    return new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8));
+                } catch (JsonProcessingException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+    }
+    
+    private static String word(int i) {
+        return WORDS[Math.floorMod(i, WORDS.length)];
+    }
+}
@@ -0,0 +1,150 @@
+package com.movierentalservice.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.function.Consumer;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jms.connection.CachingConnectionFactory;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.converter.MappingJackson2MessageConverter;
+import org.springframework.jms.support.converter.MessageType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movierentalservice.config.JmsConfig;
+import com.movierentalservice.jms.EmailMessage;
+
+import jakarta.jms.TextMessage;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends per second from the outbox relay to an embedded broker over TCP. Before: a bare
+ * ActiveMQ factory, so every send opens its own connection, session and producer, and the
+ * stored JSON encoded again by the converter. After: the application's JmsTemplate on the
+ * cached connection, sending the stored JSON as the text as EmailOutboxRelay does.
+ * Messages per run: -Dbenchmark.emails (default 20000).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DirtiesContext
+@Slf4j
+class EmailSendBenchmark {
+    
+    private static final int EMAILS = Integer.getInteger("benchmark.emails", 20_000);
+    private static final int WARM_UP = 1000;
+    
+    private static final BrokerService broker = startBroker();
+    
+    @Autowired
+    private JmsTemplate jmsTemplate;
+    
+    @Autowired
+    private CachingConnectionFactory connectionFactory;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @DynamicPropertySource
+    static void brokerUrl(DynamicPropertyRegistry registry) {
+        registry.add("spring.activemq.broker-url", EmailSendBenchmark::connectUri);
+    }
+    
+    @AfterAll
+    void stopBroker() throws Exception {
+        // Close the cached connection first, or it reports the broker going away
+        connectionFactory.resetConnection();
+        broker.stop();
+    }
+    
+    @Test
+    void bareFactoryAndDoubleEncoding() throws Exception {
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setTargetType(MessageType.TEXT);
+        converter.setTypeIdPropertyName(JmsConfig.TYPE_ID_PROPERTY);
+        JmsTemplate bare = new JmsTemplate(new ActiveMQConnectionFactory(connectUri()));
+        bare.setMessageConverter(converter);
+        
+        String payload = payload();
+        run("bare factory, double encoded", queue -> bare.convertAndSend(queue, payload));
+    }
+    
+    @Test
+    void cachedConnectionAndStoredJson() throws Exception {
+        String payload = payload();
+        String queue = run("cached connection, stored JSON", destination -> jmsTemplate.send(destination, session -> {
+            TextMessage message = session.createTextMessage(payload);
+            message.setStringProperty(JmsConfig.TYPE_ID_PROPERTY, JmsConfig.EMAIL_MESSAGE_TYPE_ID);
+            return message;
+        }));
+        
+        // The consumer gets the email itself, not a JSON string holding it
+        TextMessage received = (TextMessage) jmsTemplate.receive(queue);
+        assertThat(objectMapper.readValue(received.getText(), EmailMessage.class).getRentalCode()).isEqualTo("RNT-000042");
+    }
+    
+    private String run(String path, Consumer<String> send) throws Exception {
+        String queue = "benchmark." + System.nanoTime();
+        for (int i = 0; i < WARM_UP; i++) {
+            send.accept(queue + ".warm-up");
+        }
+        
+        long begin = System.nanoTime();
+        for (int i = 0; i < EMAILS; i++) {
+            send.accept(queue);
+        }
+        long millis = (System.nanoTime() - begin) / 1_000_000;
+        
+        long queued = broker.getDestination(new ActiveMQQueue(queue)).getDestinationStatistics().getMessages().getCount();
+        log.info("{}: {} emails in {} ms ({} per second)", path, EMAILS, millis, EMAILS * 1000L / Math.max(1, millis));
+        assertThat(queued).isEqualTo(EMAILS);
+        return queue;
+    }
+    
+    // What EmailSender stores in the outbox for a confirmation
+    private String payload() throws Exception {
+        return objectMapper.writeValueAsString(EmailMessage.builder()
+                .to("renter@example.com")
+                .subject("Movie Rental Confirmation")
+                .type(EmailMessage.EmailType.RENTAL_CONFIRMATION)
+                .userName("Benchmark Renter")
+                .movieTitle("Benchmark Release")
+                .rentalCode("RNT-000042")
+                .body("Your movie rental has been confirmed.")
+                .build());
+    }
+    
+    private static String connectUri() {
+        try {
+            return broker.getTransportConnectors().get(0).getConnectUri().toString();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static BrokerService startBroker() {
+        try {
+            BrokerService brokerService = new BrokerService();
+            brokerService.setPersistent(false);
+            brokerService.setUseJmx(false);
+            brokerService.addConnector("tcp://localhost:0");
+            brokerService.start();
+            return brokerService;
+        } catch (Exception e) {
+            throw new IllegalStateException("Embedded broker did not start", e);
+        }
+    }
+}
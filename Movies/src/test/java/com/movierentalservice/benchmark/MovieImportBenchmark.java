@@ -0,0 +1,78 @@
+package com.movierentalservice.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movierentalservice.dto.MovieImportReport;
+import com.movierentalservice.service.AdminService;
+import com.movierentalservice.service.MovieImportService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Titles per second loading a catalog through the streaming NDJSON import, against adding
+ * the same movies one at a time through AdminService, which was the only way in before.
+ * Titles imported: -Dbenchmark.titles (default 1000000); titles added one at a time:
+ * -Dbenchmark.singles (default 5000). The database is an H2 file under target/benchmark, as a
+ * million titles held in memory would not fit in the heap next to the catalog indexes.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:file:./target/benchmark/movie-import-${random.uuid};"
+        + "MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;RETENTION_TIME=0")
+@ActiveProfiles("test")
+@Tag("benchmark")
+@DirtiesContext
+@Slf4j
+class MovieImportBenchmark {
+    
+    private static final int TITLES = Integer.getInteger("benchmark.titles", 1_000_000);
+    private static final int SINGLES = Integer.getInteger("benchmark.singles", 5000);
+    
+    @Autowired
+    private MovieImportService movieImportService;
+    
+    @Autowired
+    private AdminService adminService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Test
+    void streamingImport() throws Exception {
+        long before = movieCount();
+        MovieImportReport report = movieImportService.importMovies(
+                BenchmarkCatalog.ndjson(TITLES, objectMapper), MovieImportService.Format.NDJSON);
+        
+        log.info("import: {} titles in {} ms ({} per second), {} actors and {} categories",
+                report.getImported(), report.getElapsedMillis(), report.getMoviesPerSecond(),
+                report.getDistinctActors(), report.getDistinctCategories());
+        assertThat(report.getFailed()).isZero();
+        assertThat(report.getImported()).isEqualTo(TITLES);
+        assertThat(movieCount() - before).isEqualTo(TITLES);
+    }
+    
+    @Test
+    void oneAtATime() {
+        long begin = System.nanoTime();
+        for (int i = 0; i < SINGLES; i++) {
+            adminService.addMovie(BenchmarkCatalog.movie(TITLES + i));
+        }
+        long millis = (System.nanoTime() - begin) / 1_000_000;
+        
+        log.info("addMovie: {} titles in {} ms ({} per second)", SINGLES, millis, SINGLES * 1000L / Math.max(1, millis));
+    }
+    
+    private long movieCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM movies", Long.class);
+    }
+}
@@ -0,0 +1,161 @@
+package com.movierentalservice.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movierentalservice.entity.Movie;
+import com.movierentalservice.repository.MovieRepository;
+import com.movierentalservice.repository.MovieSpecifications;
+import com.movierentalservice.service.MovieImportService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares GET /movies filtering done as one SQL query through MovieSpecifications with the
+ * original in-memory path, which loaded every movie and filtered the list in Java. Both must
+ * find the same movies. Catalog size: -Dbenchmark.movies (default 100000).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DirtiesContext
+@Slf4j
+class MovieSearchBenchmark {
+    
+    private static final int MOVIES = Integer.getInteger("benchmark.movies", 100_000);
+    private static final int RUNS = 3;
+    
+    @Autowired
+    private MovieImportService movieImportService;
+    
+    @Autowired
+    private MovieRepository movieRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @BeforeAll
+    void loadCatalog() throws Exception {
+        movieImportService.importMovies(BenchmarkCatalog.ndjson(MOVIES, objectMapper), MovieImportService.Format.NDJSON);
+        // Spread the rating aggregates over 0.0 to 4.9
+        jdbcTemplate.update("UPDATE movies SET average_rating = MOD(id, 50) / 10.0, rating_count = 1");
+    }
+    
+    @Test
+    void categoryAndYear() {
+        compare("category=Drama&year=1990", "Drama", 1990, null, null);
+    }
+    
+    @Test
+    void text() {
+        compare("search=golden", null, null, null, "golden");
+    }
+    
+    @Test
+    void categoryAndRating() {
+        compare("category=Horror&rating=4.5", "Horror", null, 4.5, null);
+    }
+    
+    private void compare(String query, String category, Integer year, Double rating, String search) {
+        Specification<Movie> spec = Specification.where(null);
+        if (category != null) {
+            spec = spec.and(MovieSpecifications.inCategory(category));
+        }
+        if (year != null) {
+            spec = spec.and(MovieSpecifications.releasedIn(year));
+        }
+        if (rating != null) {
+            spec = spec.and(MovieSpecifications.averageRatingAtLeast(rating));
+        }
+        if (search != null) {
+            spec = spec.and(MovieSpecifications.textContains(search));
+        }
+        Specification<Movie> filters = spec;
+        
+        Set<Long> inMemory = ids(() -> filterInMemory(category, year, rating, search));
+        Set<Long> oneQuery = ids(() -> movieRepository.findAll(filters));
+        assertThat(oneQuery).isNotEmpty().isEqualTo(inMemory);
+        
+        long inMemoryMillis = medianMillis(() -> filterInMemory(category, year, rating, search));
+        long oneQueryMillis = medianMillis(() -> movieRepository.findAll(filters));
+        log.info("GET /movies?{} over {} movies, {} matches: in memory {} ms, one query {} ms",
+                query, MOVIES, oneQuery.size(), inMemoryMillis, oneQueryMillis);
+    }
+    
+    /**
+     * The original searchMovies: every movie loaded, then one stream pass per filter. The
+     * rating filter reads the aggregate column here, where the original ran one average
+     * query per movie, so this path is measured faster than it was.
+     */
+    private List<Movie> filterInMemory(String category, Integer year, Double rating, String search) {
+        List<Movie> movies = movieRepository.findAll();
+        if (category != null) {
+            movies = movies.stream()
+                    .filter(movie -> movie.getCategories().stream()
+                            .anyMatch(c -> c.getName().equalsIgnoreCase(category)))
+                    .collect(Collectors.toList());
+        }
+        if (year != null) {
+            movies = movies.stream()
+                    .filter(movie -> movie.getReleaseYear().equals(year))
+                    .collect(Collectors.toList());
+        }
+        if (search != null) {
+            String searchLower = search.toLowerCase();
+            movies = movies.stream()
+                    .filter(movie -> movie.getTitle().toLowerCase().contains(searchLower)
+                            || movie.getDescription().toLowerCase().contains(searchLower)
+                            || movie.getDirector().toLowerCase().contains(searchLower))
+                    .collect(Collectors.toList());
+        }
+        if (rating != null) {
+            movies = movies.stream()
+                    .filter(movie -> movie.getRatingCount() > 0 && movie.getAverageRating() >= rating)
+                    .collect(Collectors.toList());
+        }
+        return movies;
+    }
+    
+    private Set<Long> ids(Supplier<List<Movie>> search) {
+        return transactionTemplate.execute(status -> search.get().stream()
+                .map(Movie::getId)
+                .collect(Collectors.toSet()));
+    }
+    
+    // Each run in its own transaction, so nothing is served from an earlier run's persistence context
+    private long medianMillis(Supplier<List<Movie>> search) {
+        long[] millis = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            transactionTemplate.executeWithoutResult(status -> search.get().size());
+            millis[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(millis);
+        return millis[RUNS / 2];
+    }
+}
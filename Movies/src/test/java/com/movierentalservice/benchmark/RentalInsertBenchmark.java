@@ -0,0 +1,154 @@
+package com.movierentalservice.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.movierentalservice.dto.MovieDto;
+import com.movierentalservice.entity.Movie;
+import com.movierentalservice.entity.Rental;
+import com.movierentalservice.entity.User;
+import com.movierentalservice.repository.UserRepository;
+import com.movierentalservice.service.AdminService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rows per second for a bulk rental insert, one JDBC statement per row as with the identity
+ * ids (JDBC batch size 1) against the configured batches of 50 on pooled sequence ids.
+ * Rentals per run: -Dbenchmark.rentals (default 1000000).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DirtiesContext
+@Slf4j
+class RentalInsertBenchmark {
+    
+    private static final int RENTALS = Integer.getInteger("benchmark.rentals", 1_000_000);
+    private static final int ROWS_PER_TRANSACTION = 10_000;
+    private static final int ROWS_PER_FLUSH = 50;
+    private static final int WARM_UP = 20_000;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private AdminService adminService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    private long userId;
+    private long movieId;
+    
+    @BeforeAll
+    void createRenter() {
+        userId = userRepository.save(User.builder()
+                .email("bulk-renter@example.com")
+                .password("password")
+                .fullName("Bulk Renter")
+                .role(User.Role.USER)
+                .build()).getId();
+        movieId = adminService.addMovie(MovieDto.builder()
+                .title("Bulk Release")
+                .stockQuantity(0)
+                .build()).getId();
+        
+        insert(WARM_UP, 1);
+        emptyRentals();
+        insert(WARM_UP, null);
+    }
+    
+    @Test
+    void oneStatementPerRow() {
+        measure("batch size 1", 1);
+    }
+    
+    @Test
+    void configuredBatches() {
+        measure("batch size 50", null);
+    }
+    
+    private void measure(String path, Integer batchSize) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        emptyRentals();
+        statistics.clear();
+        long begin = System.nanoTime();
+        insert(RENTALS, batchSize);
+        long millis = (System.nanoTime() - begin) / 1_000_000;
+        
+        log.info("{}: {} rentals in {} ms ({} rows per second), {} JDBC statements prepared",
+                path, RENTALS, millis, RENTALS * 1000L / Math.max(1, millis), statistics.getPrepareStatementCount());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rentals", Integer.class)).isEqualTo(RENTALS);
+    }
+    
+    // A million-row DELETE takes minutes on H2; TRUNCATE needs the foreign key checks off
+    private void emptyRentals() {
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        try {
+            jdbcTemplate.execute("TRUNCATE TABLE rentals");
+        } finally {
+            jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+        }
+    }
+    
+    /**
+     * Inserts the rentals through the persistence context, {@code batchSize} overriding the
+     * configured JDBC batch size when set
+     */
+    private void insert(int rentals, Integer batchSize) {
+        LocalDateTime rentalDate = LocalDateTime.now();
+        for (int from = 0; from < rentals; from += ROWS_PER_TRANSACTION) {
+            int first = from;
+            transactionTemplate.executeWithoutResult(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+                User user = entityManager.getReference(User.class, userId);
+                Movie movie = entityManager.getReference(Movie.class, movieId);
+                for (int i = first; i < Math.min(first + ROWS_PER_TRANSACTION, rentals); i++) {
+                    entityManager.persist(Rental.builder()
+                            .user(user)
+                            .movie(movie)
+                            .rentalCode(String.format("BULK-%08d", i))
+                            .rentalDate(rentalDate)
+                            .returnDate(rentalDate.plusDays(7))
+                            .status(Rental.RentalStatus.RETURNED)
+                            .build());
+                    if ((i + 1) % ROWS_PER_FLUSH == 0) {
+                        entityManager.flush();
+                        entityManager.clear();
+                        user = entityManager.getReference(User.class, userId);
+                        movie = entityManager.getReference(Movie.class, movieId);
+                    }
+                }
+            });
+        }
+    }
+}
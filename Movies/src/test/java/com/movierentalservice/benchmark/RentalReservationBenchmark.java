@@ -0,0 +1,172 @@
+package com.movierentalservice.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.movierentalservice.dto.MovieDto;
+import com.movierentalservice.dto.RentalDto;
+import com.movierentalservice.entity.User;
+import com.movierentalservice.repository.MovieRepository;
+import com.movierentalservice.repository.UserRepository;
+import com.movierentalservice.service.AdminService;
+import com.movierentalservice.service.RentalService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Throughput of stock reservation with 200 concurrent renters who keep renting until the
+ * movie runs out: the original read-check-write, the conditional update alone, and the
+ * whole createRental. Copies per run: -Dbenchmark.copies (default 5000).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+@DirtiesContext
+@Slf4j
+class RentalReservationBenchmark {
+    
+    private static final int RENTERS = 200;
+    private static final int COPIES = Integer.getInteger("benchmark.copies", 5000);
+    
+    @Autowired
+    private AdminService adminService;
+    
+    @Autowired
+    private RentalService rentalService;
+    
+    @Autowired
+    private MovieRepository movieRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Test
+    void readCheckWrite() throws Exception {
+        long movieId = newMovie();
+        // What createRental did before: read the stock, check it, write back stock - 1
+        Result result = race(renter -> transactionTemplate.execute(status -> {
+            int stock = jdbcTemplate.queryForObject("SELECT stock_quantity FROM movies WHERE id = ?", Integer.class, movieId);
+            if (stock <= 0) {
+                return false;
+            }
+            jdbcTemplate.update("UPDATE movies SET stock_quantity = ? WHERE id = ?", stock - 1, movieId);
+            return true;
+        }));
+        report("read-check-write", movieId, result);
+    }
+    
+    @Test
+    void conditionalUpdate() throws Exception {
+        long movieId = newMovie();
+        Result result = race(renter -> transactionTemplate.execute(status -> movieRepository.reserveStock(movieId) == 1));
+        report("conditional update", movieId, result);
+        
+        assertThat(result.reserved).isEqualTo(COPIES);
+        assertThat(stockOf(movieId)).isZero();
+    }
+    
+    @Test
+    void createRental() throws Exception {
+        long movieId = newMovie();
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < RENTERS; i++) {
+            userIds.add(userRepository.save(User.builder()
+                    .email("benchmark" + i + "-" + System.nanoTime() + "@example.com")
+                    .password("password")
+                    .fullName("Benchmark Renter " + i)
+                    .role(User.Role.USER)
+                    .build()).getId());
+        }
+        Result result = race(renter -> {
+            try {
+                rentalService.createRental(RentalDto.builder()
+                        .userId(userIds.get(renter))
+                        .movieId(movieId)
+                        .build());
+                return true;
+            } catch (RuntimeException e) {
+                assertThat(e).hasMessage("Movie is not available for rental");
+                return false;
+            }
+        });
+        report("createRental", movieId, result);
+        
+        assertThat(result.reserved).isEqualTo(COPIES);
+        assertThat(stockOf(movieId)).isZero();
+    }
+    
+    /**
+     * Every renter reserves copies until a reservation fails
+     */
+    private Result race(IntPredicate reserve) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(RENTERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> renters = new ArrayList<>();
+        try {
+            for (int i = 0; i < RENTERS; i++) {
+                int renter = i;
+                renters.add(pool.submit(() -> {
+                    start.await();
+                    int reserved = 0;
+                    while (reserve.test(renter)) {
+                        reserved++;
+                    }
+                    return reserved;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            int reserved = 0;
+            for (Future<Integer> renter : renters) {
+                reserved += renter.get(10, TimeUnit.MINUTES);
+            }
+            return new Result(reserved, (System.nanoTime() - begin) / 1_000_000);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    private void report(String path, long movieId, Result result) {
+        int taken = COPIES - stockOf(movieId);
+        log.info("{}: {} renters reserved {} of {} copies in {} ms ({} per second), stock went down by {}, oversold {}",
+                path, RENTERS, result.reserved, COPIES, result.millis, result.reserved * 1000L / Math.max(1, result.millis),
+                taken, result.reserved - taken);
+    }
+    
+    private long newMovie() {
+        return adminService.addMovie(MovieDto.builder()
+                .title("Benchmark Release " + System.nanoTime())
+                .stockQuantity(COPIES)
+                .build()).getId();
+    }
+    
+    private int stockOf(long movieId) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM movies WHERE id = ?", Integer.class, movieId);
+    }
+    
+    private record Result(int reserved, long millis) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.movierentalservice.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import com.movierentalservice.config.CacheConfig;
+import com.movierentalservice.event.MovieStockChangedEvent;
+
+class CatalogCacheInvalidatorTest {
+    
+    private final CacheManager cacheManager = new ConcurrentMapCacheManager(
+            CacheConfig.MOVIES, CacheConfig.MOVIE_LISTS, CacheConfig.CATEGORIES);
+    private final CatalogCacheInvalidator invalidator = new CatalogCacheInvalidator(cacheManager);
+    
+    @Test
+    void stockChangeWithinStockKeepsTheAvailableListing() {
+        cacheManager.getCache(CacheConfig.MOVIES).put(1L, "movie");
+        cacheManager.getCache(CacheConfig.MOVIE_LISTS).put(CacheConfig.AVAILABLE_MOVIES_KEY, List.of(1L));
+        
+        invalidator.onStockChanged(new MovieStockChangedEvent(1L, 3, 2));
+        
+        assertThat(cacheManager.getCache(CacheConfig.MOVIES).get(1L)).isNull();
+        assertThat(cacheManager.getCache(CacheConfig.MOVIE_LISTS).get(CacheConfig.AVAILABLE_MOVIES_KEY)).isNotNull();
+    }
+    
+    @Test
+    void stockCrossingZeroEvictsTheAvailableListing() {
+        cacheManager.getCache(CacheConfig.MOVIE_LISTS).put(CacheConfig.AVAILABLE_MOVIES_KEY, List.of(1L));
+        
+        invalidator.onStockChanged(new MovieStockChangedEvent(1L, 1, 0));
+        
+        assertThat(cacheManager.getCache(CacheConfig.MOVIE_LISTS).get(CacheConfig.AVAILABLE_MOVIES_KEY)).isNull();
+    }
+}
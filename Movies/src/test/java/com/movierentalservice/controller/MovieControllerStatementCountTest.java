@@ -0,0 +1,87 @@
+package com.movierentalservice.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.movierentalservice.repository.MovieRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Guards the number of SQL statements the catalog endpoints run on a cold cache, so an N+1
+ * over actors, categories or ratings shows up as a failing count rather than a slow page.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class MovieControllerStatementCountTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private MovieRepository movieRepository;
+    
+    private Statistics statistics;
+    private long movieCount;
+    
+    @BeforeEach
+    void startCold() {
+        movieCount = movieRepository.count();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+    
+    @Test
+    void listingAllMovies() throws Exception {
+        mockMvc.perform(get("/movies"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(movieCount));
+        
+        // Listing ids, then the movies with their actors and categories loaded in batches
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+    }
+    
+    @Test
+    void movieDetails() throws Exception {
+        Long movieId = movieRepository.findAllIds().get(0);
+        statistics.clear();
+        
+        mockMvc.perform(get("/movies/{movieId}", movieId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(movieId));
+        
+        // One query joining the movie to its actors and categories
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+    
+    @Test
+    void filteringByCategory() throws Exception {
+        mockMvc.perform(get("/movies").param("category", "Drama"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isNotEmpty());
+        
+        // Ids come from the filter index; the movies, actors and categories are a query each
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,31 @@
+package com.movierentalservice.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.movierentalservice.dto.MovieDto;
+
+class FuzzyNameIndexTest {
+    
+    private final FuzzyNameIndex index = new FuzzyNameIndex();
+    
+    @Test
+    void namesThatNormalizeAlikeCanBeReindexedAndRemoved() {
+        MovieDto movie = MovieDto.builder()
+                .id(1L)
+                .title("Amélie")
+                .director("Jean-Pierre Jeunet")
+                .actors(List.of("Amelie", "AMÉLIE!"))
+                .build();
+        
+        index.index(movie);
+        index.index(movie);
+        assertThat(index.search("amelie", 10, null)).containsExactly(1L);
+        
+        index.remove(1L);
+        assertThat(index.search("amelie", 10, null)).isEmpty();
+    }
+}
@@ -0,0 +1,90 @@
+package com.movierentalservice.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.movierentalservice.dto.MovieDto;
+import com.movierentalservice.dto.RentalDto;
+import com.movierentalservice.entity.User;
+import com.movierentalservice.repository.RentalRepository;
+import com.movierentalservice.repository.UserRepository;
+import com.movierentalservice.service.AdminService;
+import com.movierentalservice.service.IdempotencyService;
+import com.movierentalservice.service.RentalService;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class IdempotencyServiceImplTest {
+    
+    private static final int RETRIES = 10;
+    
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private RentalService rentalService;
+    
+    @Autowired
+    private AdminService adminService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private RentalRepository rentalRepository;
+    
+    @Test
+    void concurrentRetriesOfTheLastCopyAllGetTheFirstResponse() throws Exception {
+        MovieDto movie = adminService.addMovie(MovieDto.builder()
+                .title("Last Copy " + System.nanoTime())
+                .stockQuantity(1)
+                .build());
+        User user = userRepository.save(User.builder()
+                .email("retrier-" + System.nanoTime() + "@example.com")
+                .password("password")
+                .fullName("Retrier")
+                .role(User.Role.USER)
+                .build());
+        RentalDto request = RentalDto.builder()
+                .userId(user.getId())
+                .movieId(movie.getId())
+                .build();
+        String key = UUID.randomUUID().toString();
+        
+        ExecutorService pool = Executors.newFixedThreadPool(RETRIES);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<RentalDto>> retries = new ArrayList<>();
+        try {
+            for (int i = 0; i < RETRIES; i++) {
+                retries.add(pool.submit(() -> {
+                    start.await();
+                    return idempotencyService.execute("rentals", key, request, RentalDto.class,
+                            () -> rentalService.createRental(request));
+                }));
+            }
+            start.countDown();
+            
+            List<String> rentalCodes = new ArrayList<>();
+            for (Future<RentalDto> retry : retries) {
+                rentalCodes.add(retry.get(60, TimeUnit.SECONDS).getRentalCode());
+            }
+            assertThat(rentalCodes).hasSize(RETRIES).containsOnly(rentalCodes.get(0));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(rentalRepository.findByMovieIdOrderByRentalDateDesc(movie.getId())).hasSize(1);
+    }
+}
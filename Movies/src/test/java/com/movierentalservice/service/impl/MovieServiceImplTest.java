@@ -0,0 +1,50 @@
+package com.movierentalservice.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.movierentalservice.dto.MovieDto;
+import com.movierentalservice.repository.MovieRepository;
+import com.movierentalservice.service.MovieService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class MovieServiceImplTest {
+    
+    @Autowired
+    private MovieService movieService;
+    
+    @Autowired
+    private MovieRepository movieRepository;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Test
+    void availableMoviesComeFromTheBitmapAndTheMovieCache() {
+        List<Long> inStock = movieRepository.findAvailableIds();
+        
+        // The first call loads the movies, the second finds every one of them cached
+        transactionTemplate.execute(status -> movieService.getAvailableMovies());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<MovieDto> available = transactionTemplate.execute(status -> movieService.getAvailableMovies());
+        
+        assertThat(available).extracting(MovieDto::getId).containsExactlyElementsOf(inStock);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+}
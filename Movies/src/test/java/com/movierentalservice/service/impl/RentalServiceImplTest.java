@@ -0,0 +1,144 @@
+package com.movierentalservice.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.movierentalservice.dto.MovieDto;
+import com.movierentalservice.dto.RentalDto;
+import com.movierentalservice.entity.Rental;
+import com.movierentalservice.entity.User;
+import com.movierentalservice.repository.MovieRepository;
+import com.movierentalservice.repository.RentalRepository;
+import com.movierentalservice.repository.UserRepository;
+import com.movierentalservice.service.AdminService;
+import com.movierentalservice.service.RentalService;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RentalServiceImplTest {
+    
+    private static final int RENTERS = 200;
+    private static final int COPIES = 10;
+    
+    @Autowired
+    private RentalService rentalService;
+    
+    @Autowired
+    private AdminService adminService;
+    
+    @Autowired
+    private MovieRepository movieRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private RentalRepository rentalRepository;
+    
+    @Test
+    void concurrentRentersNeverGetMoreCopiesThanInStock() throws Exception {
+        MovieDto movie = newMovie(COPIES);
+        List<User> renters = new ArrayList<>();
+        for (int i = 0; i < RENTERS; i++) {
+            renters.add(newUser("renter" + i));
+        }
+        
+        ExecutorService pool = Executors.newFixedThreadPool(RENTERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+        try {
+            for (User renter : renters) {
+                attempts.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        rentalService.createRental(request(renter, movie));
+                        return true;
+                    } catch (RuntimeException e) {
+                        // Anything but running out of copies fails the test
+                        assertThat(e).hasMessage("Movie is not available for rental");
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            
+            int rented = 0;
+            for (Future<Boolean> attempt : attempts) {
+                if (attempt.get(60, TimeUnit.SECONDS)) {
+                    rented++;
+                }
+            }
+            assertThat(rented).isEqualTo(COPIES);
+        } finally {
+            pool.shutdownNow();
+        }
+        
+        assertThat(stockOf(movie)).isZero();
+        assertThat(rentalRepository.findByMovieIdOrderByRentalDateDesc(movie.getId())).hasSize(COPIES);
+    }
+    
+    @Test
+    void cancellingAnOrderPutsTheCopyBack() {
+        MovieDto movie = newMovie(1);
+        RentalDto rental = rentalService.createRental(request(newUser("canceller"), movie));
+        assertThat(stockOf(movie)).isZero();
+        
+        rentalService.cancelRental(rental.getId());
+        
+        assertThat(stockOf(movie)).isEqualTo(1);
+    }
+    
+    @Test
+    void returningATakenRentalPutsTheCopyBack() {
+        MovieDto movie = newMovie(1);
+        RentalDto rental = rentalService.createRental(request(newUser("returner"), movie));
+        
+        rentalService.changeStatus(rental.getId(), Rental.RentalStatus.TAKEN);
+        assertThat(stockOf(movie)).isZero();
+        
+        rentalService.changeStatus(rental.getId(), Rental.RentalStatus.RETURNED);
+        assertThat(stockOf(movie)).isEqualTo(1);
+    }
+    
+    private MovieDto newMovie(int copies) {
+        return adminService.addMovie(MovieDto.builder()
+                .title("Contended Movie " + System.nanoTime())
+                .director("Test Director")
+                .releaseYear(2020)
+                .duration(100)
+                .stockQuantity(copies)
+                .build());
+    }
+    
+    private User newUser(String name) {
+        return userRepository.save(User.builder()
+                .email(name + "-" + System.nanoTime() + "@example.com")
+                .password("password")
+                .fullName(name)
+                .role(User.Role.USER)
+                .build());
+    }
+    
+    private static RentalDto request(User user, MovieDto movie) {
+        return RentalDto.builder()
+                .userId(user.getId())
+                .movieId(movie.getId())
+                .build();
+    }
+    
+    private int stockOf(MovieDto movie) {
+        return movieRepository.findById(movie.getId()).orElseThrow().getStockQuantity();
+    }
+}
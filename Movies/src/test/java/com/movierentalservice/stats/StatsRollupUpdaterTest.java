@@ -0,0 +1,103 @@
+package com.movierentalservice.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.movierentalservice.dto.MovieDto;
+import com.movierentalservice.dto.RentalDto;
+import com.movierentalservice.entity.User;
+import com.movierentalservice.repository.MovieRentalStatsRepository;
+import com.movierentalservice.repository.UserRentalStatsRepository;
+import com.movierentalservice.repository.UserRepository;
+import com.movierentalservice.scheduler.StatsRollupRebuilder;
+import com.movierentalservice.service.AdminService;
+import com.movierentalservice.service.RentalService;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class StatsRollupUpdaterTest {
+    
+    private static final int RENTERS = 20;
+    private static final int RENTALS_EACH = 10;
+    
+    @Autowired
+    private StatsRollupUpdater statsRollupUpdater;
+    
+    @Autowired
+    private StatsRollupRebuilder statsRollupRebuilder;
+    
+    @Autowired
+    private RentalService rentalService;
+    
+    @Autowired
+    private AdminService adminService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private MovieRentalStatsRepository movieRentalStatsRepository;
+    
+    @Autowired
+    private UserRentalStatsRepository userRentalStatsRepository;
+    
+    @Test
+    void rebuildsDuringRentalsCountEachRentalOnce() throws Exception {
+        MovieDto movie = adminService.addMovie(MovieDto.builder()
+                .title("Rollup Movie " + System.nanoTime())
+                .stockQuantity(RENTERS * RENTALS_EACH)
+                .build());
+        List<User> renters = new ArrayList<>();
+        for (int i = 0; i < RENTERS; i++) {
+            renters.add(userRepository.save(User.builder()
+                    .email("rollup" + i + "-" + System.nanoTime() + "@example.com")
+                    .password("password")
+                    .fullName("Rollup Renter " + i)
+                    .role(User.Role.USER)
+                    .build()));
+        }
+        
+        ExecutorService pool = Executors.newFixedThreadPool(RENTERS);
+        try {
+            List<Future<?>> rentals = new ArrayList<>();
+            for (User renter : renters) {
+                rentals.add(pool.submit(() -> {
+                    for (int i = 0; i < RENTALS_EACH; i++) {
+                        rentalService.createRental(RentalDto.builder()
+                                .userId(renter.getId())
+                                .movieId(movie.getId())
+                                .build());
+                    }
+                }));
+            }
+            // Recount the totals over and over while the rentals commit
+            while (!rentals.stream().allMatch(Future::isDone)) {
+                statsRollupRebuilder.rebuild();
+            }
+            for (Future<?> rental : rentals) {
+                rental.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        statsRollupUpdater.flush();
+        
+        assertThat(movieRentalStatsRepository.findById(movie.getId()).orElseThrow().getOrderedCount())
+                .isEqualTo(RENTERS * RENTALS_EACH);
+        for (User renter : renters) {
+            assertThat(userRentalStatsRepository.findById(renter.getId()).orElseThrow().getRentals())
+                    .isEqualTo(RENTALS_EACH);
+        }
+    }
+}